@@ -0,0 +1,196 @@
+package com.natlex.assignment.api.controller;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Sends a file as a download with an {@code ETag}, conditional GET and single byte ranges, so that
+ * clients can skip files they already have and resume interrupted downloads. The body is handed to
+ * the container's sendfile support when it has one, and copied with {@link
+ * FileChannel#transferTo} otherwise.
+ */
+final class FileDownload {
+
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private FileDownload() {}
+
+  static void send(
+      File file,
+      String filename,
+      String contentType,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+    send(file, filename, contentType, eTag(file, ""), request, response);
+  }
+
+  /**
+   * Sends a gzip file as is, with {@code Content-Encoding: gzip}, to clients that accept gzip, and
+   * decompresses it on the fly for the others. Ranges are only served on the compressed bytes.
+   */
+  static void sendGzipped(
+      File file,
+      String filename,
+      String contentType,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptsGzip(request)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      send(file, filename, contentType, eTag(file, "-gzip"), request, response);
+      return;
+    }
+
+    if (new ServletWebRequest(request, response)
+        .checkNotModified(eTag(file, ""), file.lastModified())) {
+      return;
+    }
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+    response.setContentType(contentType);
+    if (!"HEAD".equals(request.getMethod())) {
+      try (InputStream in = new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+        in.transferTo(response.getOutputStream());
+      }
+    }
+  }
+
+  private static void send(
+      File file,
+      String filename,
+      String contentType,
+      String eTag,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+
+    long length = file.length();
+    if (new ServletWebRequest(request, response).checkNotModified(eTag, file.lastModified())) {
+      return;
+    }
+
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+    response.setContentType(contentType);
+
+    long start = 0;
+    long end = length - 1;
+    HttpRange range = requestedRange(request, eTag);
+    if (range != null) {
+      boolean satisfiable;
+      try {
+        start = range.getRangeStart(length);
+        end = range.getRangeEnd(length);
+        satisfiable = start <= end;
+      } catch (IllegalArgumentException e) {
+        satisfiable = false;
+      }
+      if (!satisfiable) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        return;
+      }
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+    }
+
+    long count = end - start + 1;
+    response.setContentLengthLong(count);
+    if (count > 0 && !"HEAD".equals(request.getMethod())) {
+      writeBody(file, start, count, request, response);
+    }
+  }
+
+  private static String eTag(File file, String variant) {
+    return "\""
+        + Long.toHexString(file.lastModified())
+        + "-"
+        + Long.toHexString(file.length())
+        + variant
+        + "\"";
+  }
+
+  private static boolean acceptsGzip(HttpServletRequest request) {
+    Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+    while (headers != null && headers.hasMoreElements()) {
+      for (String coding : headers.nextElement().split(",")) {
+        String[] parts = coding.split(";");
+        String name = parts[0].trim();
+        if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+          return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the single range to send, or null to send the whole file: when there is no or an
+   * unparsable {@code Range} header, when it asks for several ranges, or when {@code If-Range}
+   * names another version of the file.
+   */
+  private static HttpRange requestedRange(HttpServletRequest request, String eTag) {
+    String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (rangeHeader == null || (ifRange != null && !ifRange.equals(eTag))) {
+      return null;
+    }
+
+    try {
+      List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void writeBody(
+      File file, long start, long count, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, start + count);
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+      long position = start;
+      long end = start + count;
+      while (position < end) {
+        long transferred = channel.transferTo(position, end - position, out);
+        if (transferred <= 0) {
+          throw new EOFException(file.getPath() + " ended at byte " + position);
+        }
+        position += transferred;
+      }
+    }
+  }
+}
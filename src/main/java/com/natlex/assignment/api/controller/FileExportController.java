@@ -1,26 +1,40 @@
 package com.natlex.assignment.api.controller;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 
-import org.springframework.core.io.InputStreamResource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.natlex.assignment.api.response.JobIdResponse;
 import com.natlex.assignment.api.response.JobStateResponse;
 import com.natlex.assignment.mapper.JobMapper;
+import com.natlex.assignment.model.ExportFormat;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
 import com.natlex.assignment.service.ExportService;
 import com.natlex.assignment.service.FileServiceCallback;
+import com.natlex.assignment.service.JobEventPublisher;
 import com.natlex.assignment.service.JobService;
 
 import lombok.RequiredArgsConstructor;
@@ -32,37 +46,118 @@ public class FileExportController {
 
   private final JobService jobService;
   private final ExportService exportService;
+  private final JobEventPublisher jobEventPublisher;
   private final FileServiceCallback fileServiceCallback;
 
   @GetMapping
-  public ResponseEntity<JobIdResponse> exportFile() throws IOException {
+  public ResponseEntity<JobIdResponse> exportFile(
+      @RequestParam(name = "format", defaultValue = "XLS") ExportFormat format,
+      @RequestParam(name = "compress", defaultValue = "${export.compression.enabled:false}")
+          boolean compress,
+      @ModelAttribute SectionFilter filter)
+      throws IOException {
+
+    boolean compressed = compress && format.isCompressible();
+    if (filter.isEmpty()) {
+      Optional<Job> reusableJob = exportService.findReusableExport(format, compressed);
+      if (reusableJob.isPresent()) {
+        return ResponseEntity.ok().body(JobMapper.toJobId(reusableJob.get()));
+      }
+    }
 
-    Job newJob = jobService.saveNewFileJob(JobType.EXPORT);
-    exportService
-        .exportFile(newJob.getId(), newJob.getFilePath())
-        .whenComplete(fileServiceCallback);
+    Job newJob = jobService.saveNewExportJob(format, compressed);
+    try {
+      exportService
+          .exportFile(newJob.getId(), newJob.getFilePath(), format, filter)
+          .whenComplete(fileServiceCallback);
+    } catch (TaskRejectedException e) {
+      jobService.discardJob(newJob);
+      throw e;
+    }
     return ResponseEntity.ok().body(JobMapper.toJobId(newJob));
   }
 
+  /**
+   * Writes the export into the response body. It defaults to CSV, which reaches the client row by
+   * row; the spreadsheet formats are only sent once the whole workbook is built.
+   */
+  @GetMapping("/stream")
+  public ResponseEntity<StreamingResponseBody> streamExport(
+      @RequestParam(name = "format", required = false) ExportFormat requestedFormat,
+      @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+      @ModelAttribute SectionFilter filter) {
+
+    ExportFormat format =
+        Optional.ofNullable(requestedFormat).or(() -> fromAccept(accept)).orElse(ExportFormat.CSV);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(
+        HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sections." + format.getExtension());
+
+    return ResponseEntity.ok()
+        .headers(headers)
+        .contentType(MediaType.parseMediaType(format.getContentType()))
+        .body(out -> exportService.streamExport(format, filter, out));
+  }
+
   @GetMapping("/{id}")
   public ResponseEntity<JobStateResponse> getExportJobStatus(@PathVariable String id) {
     JobStateResponse response = jobService.getJobState(id, JobType.EXPORT);
     return ResponseEntity.ok().body(response);
   }
 
+  /** Cancels an export in progress and deletes what it wrote so far. */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<JobStateResponse> cancelExportJob(@PathVariable String id) {
+
+    exportService.cancelExport(id);
+    jobEventPublisher.publish(id);
+    return ResponseEntity.accepted().body(jobService.getJobState(id, JobType.EXPORT));
+  }
+
+  /** Streams the job's state and progress as Server-Sent Events until it ends. */
+  @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter getExportJobEvents(@PathVariable String id) {
+    return jobEventPublisher.subscribe(id, JobType.EXPORT);
+  }
+
   @GetMapping("/{id}/file")
-  public ResponseEntity<InputStreamResource> getExportedFile(@PathVariable String id)
+  public void getExportedFile(
+      @PathVariable String id, HttpServletRequest request, HttpServletResponse response)
       throws IOException {
 
     File exportedFile = exportService.getExportedFile(id);
+    ExportFormat format =
+        ExportFormat.fromExtension(exportedFile.getName()).orElse(ExportFormat.XLS);
 
-    HttpHeaders headers = new HttpHeaders();
-    headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + id + ".xls");
+    String filename = id + "." + format.getExtension();
 
-    return ResponseEntity.ok()
-        .headers(headers)
-        .contentLength(exportedFile.length())
-        .contentType(MediaType.parseMediaType(Files.probeContentType(exportedFile.toPath())))
-        .body(new InputStreamResource(new FileInputStream(exportedFile)));
+    if (exportedFile.getName().endsWith(ExportFormat.GZIP_SUFFIX)) {
+      FileDownload.sendGzipped(exportedFile, filename, format.getContentType(), request, response);
+    } else {
+      FileDownload.send(exportedFile, filename, format.getContentType(), request, response);
+    }
+  }
+
+  /**
+   * Picks the export format the Accept header prefers, by quality value and then by the order of
+   * the header. A header that cannot be parsed names no format, so the default applies.
+   */
+  private static Optional<ExportFormat> fromAccept(String accept) {
+    if (accept == null) {
+      return Optional.empty();
+    }
+    List<MediaType> mediaTypes;
+    try {
+      mediaTypes = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return Optional.empty();
+    }
+    return mediaTypes.stream()
+        .filter(mediaType -> mediaType.getQualityValue() > 0)
+        .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+        .map(mediaType -> ExportFormat.fromContentType(mediaType.toString()))
+        .flatMap(Optional::stream)
+        .findFirst();
   }
 }
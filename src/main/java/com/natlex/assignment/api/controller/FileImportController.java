@@ -2,25 +2,38 @@ package com.natlex.assignment.api.controller;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.natlex.assignment.api.filter.RequestStartFilter;
+import com.natlex.assignment.api.response.ImportValidationResponse;
 import com.natlex.assignment.api.response.JobIdResponse;
 import com.natlex.assignment.api.response.JobStateResponse;
 import com.natlex.assignment.mapper.JobMapper;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobType;
 import com.natlex.assignment.service.FileServiceCallback;
 import com.natlex.assignment.service.FileStorageService;
 import com.natlex.assignment.service.ImportService;
+import com.natlex.assignment.service.ImportValidationService;
+import com.natlex.assignment.service.JobEventPublisher;
 import com.natlex.assignment.service.JobService;
 
 import lombok.RequiredArgsConstructor;
@@ -32,25 +45,100 @@ public class FileImportController {
 
   private final JobService jobService;
   private final ImportService importService;
+  private final ImportValidationService importValidationService;
   private final FileStorageService fileStorageService;
+  private final JobEventPublisher jobEventPublisher;
   private final FileServiceCallback fileImportServiceCallback;
 
   @PostMapping
-  public ResponseEntity<JobIdResponse> importFile(@RequestParam("file") MultipartFile file)
+  public ResponseEntity<JobIdResponse> importFile(
+      @RequestParam("file") MultipartFile file,
+      @RequestParam(name = "mode", defaultValue = "APPEND") ImportMode mode,
+      @RequestParam(name = "force", defaultValue = "false") boolean force,
+      @RequestAttribute(RequestStartFilter.START_NANOS_ATTRIBUTE) long requestStartNanos)
       throws IOException {
 
-    File uploadedFile = fileStorageService.saveFile(file);
+    File uploadedFile = fileStorageService.saveFile(file, requestStartNanos);
     String filePath = uploadedFile.getAbsolutePath();
-    Job newJob = jobService.saveNewFileJob(JobType.IMPORT);
+    FileFormat format = FileFormat.fromUpload(file.getContentType(), file.getOriginalFilename());
 
-    importService.importFile(newJob.getId(), filePath).whenComplete(fileImportServiceCallback);
+    String contentHash = null;
+    if (!force) {
+      contentHash = fileStorageService.contentHash(uploadedFile);
+      Optional<Job> existingJob = jobService.findReusableImportJob(contentHash, format, mode);
+      if (existingJob.isPresent()) {
+        return reuseJob(existingJob.get(), uploadedFile);
+      }
+    }
+
+    Job newJob;
+    try {
+      newJob = jobService.saveNewImportJob(filePath, format, mode, contentHash, !force);
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent upload of the same content created its job first.
+      Optional<Job> existingJob =
+          force ? Optional.empty() : jobService.findReusableImportJob(contentHash, format, mode);
+      if (existingJob.isEmpty()) {
+        fileStorageService.deleteFile(uploadedFile);
+        throw e;
+      }
+      return reuseJob(existingJob.get(), uploadedFile);
+    }
+
+    try {
+      importService
+          .importFile(newJob.getId(), filePath, format, mode)
+          .whenComplete(fileImportServiceCallback);
+    } catch (TaskRejectedException e) {
+      jobService.discardJob(newJob);
+      throw e;
+    }
     return ResponseEntity.status(HttpStatus.CREATED).body(JobMapper.toJobId(newJob));
   }
 
+  @PostMapping("/validate")
+  public ResponseEntity<ImportValidationResponse> validateFile(
+      @RequestParam("file") MultipartFile file,
+      @RequestAttribute(RequestStartFilter.START_NANOS_ATTRIBUTE) long requestStartNanos)
+      throws IOException {
+
+    File uploadedFile = fileStorageService.saveFile(file, requestStartNanos);
+    try {
+      FileFormat format = FileFormat.fromUpload(file.getContentType(), file.getOriginalFilename());
+      return ResponseEntity.ok().body(importValidationService.validate(uploadedFile, format));
+    } finally {
+      fileStorageService.deleteFile(uploadedFile);
+    }
+  }
+
   @GetMapping("/{id}")
   public ResponseEntity<JobStateResponse> getImportJobState(@PathVariable String id) {
 
     JobStateResponse response = jobService.getJobState(id, JobType.IMPORT);
     return ResponseEntity.ok().body(response);
   }
+
+  /**
+   * Cancels an import in progress. With {@code rollback} the sections it added are removed as well.
+   */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<JobStateResponse> cancelImportJob(
+      @PathVariable String id,
+      @RequestParam(name = "rollback", defaultValue = "false") boolean rollback) {
+
+    importService.cancelImport(id, rollback);
+    jobEventPublisher.publish(id);
+    return ResponseEntity.accepted().body(jobService.getJobState(id, JobType.IMPORT));
+  }
+
+  /** Streams the job's state and progress as Server-Sent Events until it ends. */
+  @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter getImportJobEvents(@PathVariable String id) {
+    return jobEventPublisher.subscribe(id, JobType.IMPORT);
+  }
+
+  private ResponseEntity<JobIdResponse> reuseJob(Job existingJob, File uploadedFile) {
+    fileStorageService.deleteFile(uploadedFile);
+    return ResponseEntity.ok().body(JobMapper.toJobId(existingJob));
+  }
 }
@@ -0,0 +1,32 @@
+package com.natlex.assignment.api.filter;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records when a request arrived, before any filter reads its body, so uploads can be timed from
+ * the first byte rather than from the point the container has already stored them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestStartFilter extends OncePerRequestFilter {
+
+  public static final String START_NANOS_ATTRIBUTE = "requestStartNanos";
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    request.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+    filterChain.doFilter(request, response);
+  }
+}
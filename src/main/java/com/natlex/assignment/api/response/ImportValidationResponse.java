@@ -0,0 +1,16 @@
+package com.natlex.assignment.api.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportValidationResponse(
+    boolean valid,
+    long rowsChecked,
+    long errorCount,
+    List<RowErrorResponse> errors,
+    String fileError) {}
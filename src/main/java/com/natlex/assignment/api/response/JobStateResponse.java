@@ -1,8 +1,17 @@
 package com.natlex.assignment.api.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.natlex.assignment.model.JobState;
 
 import lombok.Builder;
 
 @Builder
-public record JobStateResponse(JobState state) {}
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobStateResponse(
+    JobState state,
+    Long rowsProcessed,
+    Long totalRows,
+    Long bytesProcessed,
+    Long elapsedMillis,
+    Double rowsPerSecond,
+    Double compressionRatio) {}
@@ -0,0 +1,8 @@
+package com.natlex.assignment.api.response;
+
+import java.util.List;
+
+import lombok.Builder;
+
+@Builder
+public record RowErrorResponse(int row, List<String> messages) {}
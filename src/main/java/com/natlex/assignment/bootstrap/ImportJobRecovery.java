@@ -0,0 +1,65 @@
+package com.natlex.assignment.bootstrap;
+
+import java.io.File;
+import java.util.List;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.service.FileServiceCallback;
+import com.natlex.assignment.service.ImportService;
+import com.natlex.assignment.service.JobService;
+import com.natlex.assignment.service.SectionService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resumes import jobs left in progress by a previous run from their last checkpoint, and rolls back
+ * cancelled imports whose rollback was requested but not applied before the previous run stopped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobRecovery implements CommandLineRunner {
+
+  private final JobRepository jobRepository;
+  private final JobService jobService;
+  private final ImportService importService;
+  private final SectionService sectionService;
+  private final FileServiceCallback fileServiceCallback;
+
+  @Override
+  public void run(String... args) throws Exception {
+    for (Job job :
+        jobRepository.findByJobTypeAndJobStateAndRollbackRequestedTrue(
+            JobType.IMPORT, JobState.CANCELLED)) {
+      if (sectionService.rollBackImport(job.getId())) {
+        log.info("Rolled back the sections imported by cancelled job {}", job.getId());
+      }
+    }
+
+    List<Job> interruptedJobs =
+        jobRepository.findByJobTypeAndJobState(JobType.IMPORT, JobState.IN_PROGRESS);
+
+    for (Job job : interruptedJobs) {
+      if (job.getFilePath() == null
+          || job.getFileFormat() == null
+          || !new File(job.getFilePath()).isFile()) {
+        jobService.updateJobState(job.getId(), JobState.ERROR);
+        log.error("Import job {} cannot be resumed, its upload is missing", job.getId());
+        continue;
+      }
+      try {
+        importService.resumeImport(job).whenComplete(fileServiceCallback);
+      } catch (TaskRejectedException e) {
+        log.warn("Import queue is full, job {} is resumed on next startup", job.getId());
+      }
+    }
+  }
+}
@@ -1,8 +1,156 @@
 package com.natlex.assignment.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Runs imports and exports on executors of their own, so a burst of bulk imports cannot hold up
+ * exports. Each has a bounded queue; once it is full, further jobs are rejected with a {@link
+ * org.springframework.core.task.TaskRejectedException} instead of queueing without limit.
+ *
+ * <p>With {@code spring.threads.virtual.enabled} the jobs run on virtual threads. The pools still
+ * bound how many jobs run and wait, and the default executor becomes Spring Boot's virtual thread
+ * executor, like the servlet container's request threads. The jobs only block on {@code
+ * java.util.concurrent} locks and queues, which do not pin carrier threads.
+ *
+ * <p>Import writers and export shards run on worker executors of their own, sized so that every
+ * job the job executors run at once gets all its workers: an import holds its writers until it
+ * ends, so a shared pool would let a few imports hold up every export. Each job thread and worker
+ * may hold a database connection, so the job pools and their workers add up to the connections
+ * that jobs can take from the Hikari pool.
+ */
 @Configuration
 @EnableAsync
-public class AsyncConfig {}
+@RequiredArgsConstructor
+public class AsyncConfig {
+
+  public static final String IMPORT_EXECUTOR = "importExecutor";
+  public static final String EXPORT_EXECUTOR = "exportExecutor";
+  public static final String IMPORT_WRITER_EXECUTOR = "importWriterExecutor";
+  public static final String EXPORT_WORKER_EXECUTOR = "exportWorkerExecutor";
+  public static final String EVENT_EXECUTOR = "eventExecutor";
+
+  private final Environment environment;
+
+  @Value("${import.executor.core-size:2}")
+  private int importCoreSize;
+
+  @Value("${import.executor.max-size:2}")
+  private int importMaxSize;
+
+  @Value("${import.executor.queue-capacity:10}")
+  private int importQueueCapacity;
+
+  @Value("${export.executor.core-size:2}")
+  private int exportCoreSize;
+
+  @Value("${export.executor.max-size:4}")
+  private int exportMaxSize;
+
+  @Value("${export.executor.queue-capacity:20}")
+  private int exportQueueCapacity;
+
+  @Value("${import.pipeline.writers:2}")
+  private int importWriters;
+
+  @Value("${export.parallel.workers:1}")
+  private int exportWorkers;
+
+  @Bean(IMPORT_EXECUTOR)
+  public ThreadPoolTaskExecutor importExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return jobExecutor(
+        builder
+            .threadNamePrefix("import-job-")
+            .corePoolSize(importCoreSize)
+            .maxPoolSize(importMaxSize)
+            .queueCapacity(importQueueCapacity));
+  }
+
+  @Bean(EXPORT_EXECUTOR)
+  public ThreadPoolTaskExecutor exportExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return jobExecutor(
+        builder
+            .threadNamePrefix("export-job-")
+            .corePoolSize(exportCoreSize)
+            .maxPoolSize(exportMaxSize)
+            .queueCapacity(exportQueueCapacity));
+  }
+
+  /**
+   * Runs import writers, with a thread for every writer of every import the import executor runs.
+   * Its queue is not bounded, as the import executor already bounds how many imports submit them.
+   */
+  @Bean(IMPORT_WRITER_EXECUTOR)
+  public ThreadPoolTaskExecutor importWriterExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return workerExecutor(builder, "import-writer-", importMaxSize * importWriters);
+  }
+
+  /**
+   * Runs export shards, with a thread for every worker of every export the export executor runs.
+   * Its queue is not bounded, as the export executor already bounds how many exports submit them.
+   */
+  @Bean(EXPORT_WORKER_EXECUTOR)
+  public ThreadPoolTaskExecutor exportWorkerExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return workerExecutor(builder, "export-worker-", exportMaxSize * exportWorkers);
+  }
+
+  /**
+   * Sends job events to their subscribers, so a slow client cannot hold up the scheduler thread.
+   * Sends mostly wait on the network, so each runs on a virtual thread of its own.
+   */
+  @Bean(EVENT_EXECUTOR)
+  public SimpleAsyncTaskExecutor eventExecutor(SimpleAsyncTaskExecutorBuilder builder) {
+    return builder.virtualThreads(true).threadNamePrefix("job-events-").build();
+  }
+
+  /**
+   * Keeps the default executor for other {@code @Async} methods and asynchronous MVC requests,
+   * which Spring Boot only creates when no other executor is defined.
+   */
+  @Lazy
+  @Bean(
+      name = {
+        TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+      })
+  public AsyncTaskExecutor applicationTaskExecutor(
+      ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+      SimpleAsyncTaskExecutorBuilder virtualThreadBuilder) {
+    return Threading.VIRTUAL.isActive(environment)
+        ? virtualThreadBuilder.build()
+        : threadPoolBuilder.build();
+  }
+
+  private ThreadPoolTaskExecutor workerExecutor(
+      ThreadPoolTaskExecutorBuilder builder, String threadNamePrefix, int poolSize) {
+    return jobExecutor(
+        builder
+            .threadNamePrefix(threadNamePrefix)
+            .corePoolSize(Math.max(poolSize, 1))
+            .maxPoolSize(Math.max(poolSize, 1))
+            .queueCapacity(Integer.MAX_VALUE));
+  }
+
+  private ThreadPoolTaskExecutor jobExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    ThreadPoolTaskExecutor executor = builder.build();
+    if (Threading.VIRTUAL.isActive(environment)) {
+      executor.setThreadFactory(
+          Thread.ofVirtual().name(executor.getThreadNamePrefix(), 0).factory());
+    }
+    return executor;
+  }
+}
@@ -0,0 +1,7 @@
+package com.natlex.assignment.exception;
+
+public class ArtifactExpiredException extends RuntimeException {
+  public ArtifactExpiredException(String message) {
+    super(message);
+  }
+}
@@ -1,13 +1,18 @@
 package com.natlex.assignment.exception;
 
 import java.io.FileNotFoundException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -15,6 +20,7 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
@@ -25,6 +31,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ControllersExceptionHandler {
 
+  @Value("${jobs.retry-after:PT30S}")
+  private Duration retryAfter;
+
   @ExceptionHandler(EntityNotFoundException.class)
   ProblemDetail handle(EntityNotFoundException ex) {
     return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
@@ -40,6 +49,12 @@ public class ControllersExceptionHandler {
     return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, "File not found");
   }
 
+  @ExceptionHandler(MaxUploadSizeExceededException.class)
+  ProblemDetail handle(MaxUploadSizeExceededException ex) {
+    return ProblemDetail.forStatusAndDetail(
+        HttpStatus.PAYLOAD_TOO_LARGE, "Uploaded file exceeds the maximum allowed size");
+  }
+
   @ExceptionHandler(MultipartException.class)
   ProblemDetail handle(MultipartException ex) {
     return ProblemDetail.forStatusAndDetail(
@@ -97,6 +112,33 @@ public class ControllersExceptionHandler {
     return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
   }
 
+  @ExceptionHandler(ArtifactExpiredException.class)
+  ProblemDetail handle(ArtifactExpiredException ex) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.GONE, ex.getMessage());
+  }
+
+  @ExceptionHandler(JobNotCancellableException.class)
+  ProblemDetail handle(JobNotCancellableException ex) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+  }
+
+  @ExceptionHandler(TaskRejectedException.class)
+  ResponseEntity<ProblemDetail> handle(TaskRejectedException ex) {
+    log.warn("Rejected a job, the queue is full: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+        .body(
+            ProblemDetail.forStatusAndDetail(
+                HttpStatus.TOO_MANY_REQUESTS, "Too many jobs are queued, please retry later"));
+  }
+
+  @ExceptionHandler(TooManySubscribersException.class)
+  ResponseEntity<ProblemDetail> handle(TooManySubscribersException ex) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+        .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+  }
+
   @ExceptionHandler(Exception.class)
   ProblemDetail handle(Exception ex) {
     ex.printStackTrace();
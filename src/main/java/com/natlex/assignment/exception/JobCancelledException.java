@@ -0,0 +1,8 @@
+package com.natlex.assignment.exception;
+
+public class JobCancelledException extends JobException {
+
+  public JobCancelledException(String jobId) {
+    super(jobId, "Job " + jobId + " was cancelled");
+  }
+}
@@ -0,0 +1,7 @@
+package com.natlex.assignment.exception;
+
+public class JobNotCancellableException extends RuntimeException {
+  public JobNotCancellableException(String message) {
+    super(message);
+  }
+}
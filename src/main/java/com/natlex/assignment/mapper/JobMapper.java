@@ -5,12 +5,42 @@ import java.util.Optional;
 import com.natlex.assignment.api.response.JobIdResponse;
 import com.natlex.assignment.api.response.JobStateResponse;
 import com.natlex.assignment.model.Job;
+import com.natlex.assignment.service.JobProgress;
 
 public class JobMapper {
 
   public static JobStateResponse toJobState(Job job) {
     return Optional.ofNullable(job)
-        .map(j -> JobStateResponse.builder().state(j.getJobState()).build())
+        .map(
+            j ->
+                JobStateResponse.builder()
+                    .state(j.getJobState())
+                    .rowsProcessed(j.getRowsProcessed())
+                    .totalRows(j.getTotalRows())
+                    .bytesProcessed(j.getBytesProcessed())
+                    .elapsedMillis(j.getElapsedMillis())
+                    .rowsPerSecond(rowsPerSecond(j.getRowsProcessed(), j.getElapsedMillis()))
+                    .compressionRatio(
+                        compressionRatio(j.getUncompressedBytes(), j.getBytesProcessed()))
+                    .build())
+        .orElse(null);
+  }
+
+  public static JobStateResponse toJobState(Job job, JobProgress progress) {
+    return Optional.ofNullable(job)
+        .map(
+            j ->
+                JobStateResponse.builder()
+                    .state(j.getJobState())
+                    .rowsProcessed(progress.getRowsProcessed())
+                    .totalRows(progress.getTotalRows())
+                    .bytesProcessed(progress.getBytesProcessed())
+                    .elapsedMillis(progress.getElapsedMillis())
+                    .rowsPerSecond(
+                        rowsPerSecond(progress.getRowsProcessed(), progress.getElapsedMillis()))
+                    .compressionRatio(
+                        compressionRatio(j.getUncompressedBytes(), progress.getBytesProcessed()))
+                    .build())
         .orElse(null);
   }
 
@@ -19,4 +49,19 @@ public class JobMapper {
         .map(j -> JobIdResponse.builder().id(j.getId()).build())
         .orElse(null);
   }
+
+  private static Double rowsPerSecond(Long rows, Long elapsedMillis) {
+    if (rows == null || elapsedMillis == null || elapsedMillis == 0) {
+      return null;
+    }
+    return rows * 1000.0 / elapsedMillis;
+  }
+
+  /** Uncompressed size over stored size; only set for compressed exports. */
+  private static Double compressionRatio(Long uncompressedBytes, Long bytesProcessed) {
+    if (uncompressedBytes == null || bytesProcessed == null || bytesProcessed == 0) {
+      return null;
+    }
+    return (double) uncompressedBytes / bytesProcessed;
+  }
 }
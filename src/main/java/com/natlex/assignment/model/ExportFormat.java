@@ -0,0 +1,51 @@
+package com.natlex.assignment.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+  XLS("xls", "application/vnd.ms-excel", true, false),
+  XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", false, false),
+  CSV("csv", "text/csv", true, true),
+  NDJSON("ndjson", "application/x-ndjson", true, true);
+
+  public static final String GZIP_SUFFIX = ".gz";
+
+  private final String extension;
+  private final String contentType;
+
+  /** Whether gzip shrinks the format; XLSX files are zip archives already. */
+  private final boolean compressible;
+
+  /**
+   * Whether parts written separately can be concatenated into one export. The spreadsheet formats
+   * are single documents and cannot.
+   */
+  private final boolean splittable;
+
+  /** Resolves the format from the file extension, ignoring a trailing {@code .gz}. */
+  public static Optional<ExportFormat> fromExtension(String filename) {
+    if (filename != null && filename.endsWith(GZIP_SUFFIX)) {
+      filename = filename.substring(0, filename.length() - GZIP_SUFFIX.length());
+    }
+    if (filename == null || filename.lastIndexOf('.') < 0) {
+      return Optional.empty();
+    }
+    String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    return Arrays.stream(values()).filter(f -> f.extension.equals(extension)).findFirst();
+  }
+
+  public static Optional<ExportFormat> fromContentType(String contentType) {
+    if (contentType == null) {
+      return Optional.empty();
+    }
+    String mimeType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+    return Arrays.stream(values()).filter(f -> f.contentType.equals(mimeType)).findFirst();
+  }
+}
@@ -0,0 +1,40 @@
+package com.natlex.assignment.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum FileFormat {
+  XLS("xls", "application/vnd.ms-excel"),
+  CSV("csv", "text/csv"),
+  TSV("tsv", "text/tab-separated-values");
+
+  private final String extension;
+  private final String contentType;
+
+  public static Optional<FileFormat> fromExtension(String filename) {
+    if (filename == null || filename.lastIndexOf('.') < 0) {
+      return Optional.empty();
+    }
+    String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    return Arrays.stream(values()).filter(f -> f.extension.equals(extension)).findFirst();
+  }
+
+  public static Optional<FileFormat> fromContentType(String contentType) {
+    if (contentType == null) {
+      return Optional.empty();
+    }
+    String mimeType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+    return Arrays.stream(values()).filter(f -> f.contentType.equals(mimeType)).findFirst();
+  }
+
+  /** Resolves the format of an upload from its file extension, then its content type. */
+  public static FileFormat fromUpload(String contentType, String filename) {
+    return fromExtension(filename).or(() -> fromContentType(contentType)).orElse(XLS);
+  }
+}
@@ -0,0 +1,8 @@
+package com.natlex.assignment.model;
+
+public enum ImportMode {
+  /** Every row becomes a new section. */
+  APPEND,
+  /** Rows update the sections with the same name and only unknown names are inserted. */
+  MERGE
+}
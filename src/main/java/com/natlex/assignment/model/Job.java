@@ -38,4 +38,28 @@ public class Job {
   @UpdateTimestamp private Instant updatedAt;
 
   private String filePath;
+
+  @Enumerated(EnumType.STRING)
+  private FileFormat fileFormat;
+
+  private Integer checkpointRow;
+
+  @Enumerated(EnumType.STRING)
+  private ImportMode importMode;
+
+  private String contentHash;
+
+  /**
+   * Identifies the content, format and mode of a reusable import while it is done or in progress.
+   * It is unique, so concurrent uploads of the same content create a single job.
+   */
+  private String dedupKey;
+
+  private Long rowsProcessed;
+  private Long totalRows;
+  private Long bytesProcessed;
+  private Long elapsedMillis;
+  private Long uncompressedBytes;
+
+  private Boolean rollbackRequested;
 }
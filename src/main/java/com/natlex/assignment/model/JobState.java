@@ -3,5 +3,6 @@ package com.natlex.assignment.model;
 public enum JobState {
   DONE,
   IN_PROGRESS,
-  ERROR;
+  ERROR,
+  CANCELLED;
 }
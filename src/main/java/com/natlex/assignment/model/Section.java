@@ -26,4 +26,5 @@ public class Section {
 
   private String name;
   private String jobId;
+  private Integer rowIndex;
 }
@@ -0,0 +1,36 @@
+package com.natlex.assignment.model;
+
+import java.util.List;
+
+import lombok.Builder;
+
+/**
+ * Narrows a bulk read of sections. Sections match when they have a geological class with any of
+ * the {@code codes}, were imported by {@code jobId}, have an id between {@code minId} and {@code
+ * maxId} inclusive, and have a name starting with {@code namePrefix}. Null or empty fields do not
+ * filter.
+ */
+@Builder
+public record SectionFilter(
+    List<String> codes, String jobId, Long minId, Long maxId, String namePrefix) {
+
+  public static final SectionFilter NONE = SectionFilter.builder().build();
+
+  public boolean isEmpty() {
+    return (codes == null || codes.isEmpty())
+        && jobId == null
+        && minId == null
+        && maxId == null
+        && (namePrefix == null || namePrefix.isEmpty());
+  }
+
+  /** Narrows this filter to the sections with an id between {@code from} and {@code to}. */
+  public SectionFilter withIdRange(long from, long to) {
+    return new SectionFilter(
+        codes,
+        jobId,
+        minId != null ? Math.max(minId, from) : from,
+        maxId != null ? Math.min(maxId, to) : to,
+        namePrefix);
+  }
+}
@@ -1,13 +1,82 @@
 package com.natlex.assignment.persistence;
 
+import java.util.List;
 import java.util.Optional;
 
+import jakarta.transaction.Transactional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
 import com.natlex.assignment.model.JobType;
 
 public interface JobRepository extends JpaRepository<Job, String> {
 
   Optional<Job> findByIdAndJobType(String id, JobType jobType);
+
+  List<Job> findByJobTypeAndJobState(JobType jobType, JobState jobState);
+
+  List<Job> findByJobTypeAndJobStateAndRollbackRequestedTrue(JobType jobType, JobState jobState);
+
+  Optional<Job> findByDedupKey(String dedupKey);
+
+  @Query("select j.filePath from Job j where j.jobState <> :jobState and j.filePath is not null")
+  List<String> findFilePathsByJobStateNot(@Param("jobState") JobState jobState);
+
+  @Modifying(clearAutomatically = true)
+  @Query("update Job j set j.jobState = :state where j.id = :id and j.jobState = :expected")
+  int updateJobState(
+      @Param("id") String id,
+      @Param("expected") JobState expected,
+      @Param("state") JobState state);
+
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update Job j set j.jobState = :cancelled, j.rollbackRequested = :rollback, "
+          + "j.dedupKey = null "
+          + "where j.id = :id and j.jobState = :inProgress")
+  int cancel(
+      @Param("id") String id,
+      @Param("rollback") boolean rollback,
+      @Param("inProgress") JobState inProgress,
+      @Param("cancelled") JobState cancelled);
+
+  @Modifying
+  @Query("update Job j set j.dedupKey = null where j.id = :id")
+  int clearDedupKey(@Param("id") String id);
+
+  @Modifying
+  @Query(
+      "update Job j set j.rollbackRequested = false "
+          + "where j.id = :id and j.rollbackRequested = true")
+  int clearRollbackRequest(@Param("id") String id);
+
+  @Modifying
+  @Query(
+      "update Job j set j.checkpointRow = :row "
+          + "where j.id = :id and (j.checkpointRow is null or j.checkpointRow < :row)")
+  int advanceCheckpoint(@Param("id") String id, @Param("row") int row);
+
+  @Transactional
+  @Modifying
+  @Query(
+      "update Job j set j.rowsProcessed = :rowsProcessed, j.totalRows = :totalRows, "
+          + "j.bytesProcessed = :bytesProcessed, j.elapsedMillis = :elapsedMillis "
+          + "where j.id = :id")
+  int updateProgress(
+      @Param("id") String id,
+      @Param("rowsProcessed") long rowsProcessed,
+      @Param("totalRows") Long totalRows,
+      @Param("bytesProcessed") long bytesProcessed,
+      @Param("elapsedMillis") long elapsedMillis);
+
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.uncompressedBytes = :uncompressedBytes where j.id = :id")
+  int updateUncompressedBytes(
+      @Param("id") String id, @Param("uncompressedBytes") long uncompressedBytes);
 }
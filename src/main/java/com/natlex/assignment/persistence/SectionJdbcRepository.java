@@ -0,0 +1,221 @@
+package com.natlex.assignment.persistence;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.natlex.assignment.model.GeologicalClass;
+import com.natlex.assignment.model.Section;
+import com.natlex.assignment.model.SectionFilter;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class SectionJdbcRepository {
+
+  private static final String INSERT_SECTION =
+      "insert into section (id, name, job_id, row_index) values (?, ?, ?, ?)";
+  private static final String INSERT_GEOLOGICAL_CLASS =
+      "insert into geological_class (id, name, code, section_id) values (?, ?, ?, ?)";
+  private static final String DELETE_CLASSES_AFTER_ROW =
+      "delete from geological_class where section_id in "
+          + "(select id from section where job_id = ? and row_index > ?)";
+  private static final String DELETE_SECTIONS_AFTER_ROW =
+      "delete from section where job_id = ? and row_index > ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void batchInsert(List<Section> sections) {
+    if (sections.isEmpty()) {
+      return;
+    }
+
+    List<Long> sectionIds = nextSequenceValues("section_seq", sections.size());
+    List<GeologicalClass> geologicalClasses = new ArrayList<>();
+    for (int i = 0; i < sections.size(); i++) {
+      Section section = sections.get(i);
+      section.setId(sectionIds.get(i));
+      geologicalClasses.addAll(section.getGeologicalClasses());
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_SECTION,
+        sections,
+        sections.size(),
+        (ps, section) -> {
+          ps.setLong(1, section.getId());
+          ps.setString(2, section.getName());
+          ps.setString(3, section.getJobId());
+          ps.setObject(4, section.getRowIndex(), Types.INTEGER);
+        });
+
+    insertGeologicalClasses(geologicalClasses);
+  }
+
+  /** Returns the ids of the sections with any of the given names, grouped by name. */
+  public Map<String, List<Long>> findIdsByNames(Collection<String> names) {
+    Map<String, List<Long>> idsByName = new HashMap<>();
+    if (names.isEmpty()) {
+      return idsByName;
+    }
+
+    jdbcTemplate.query(
+        "select id, name from section where name in (" + placeholders(names.size()) + ")",
+        rs -> {
+          idsByName
+              .computeIfAbsent(rs.getString("name"), name -> new ArrayList<>())
+              .add(rs.getLong("id"));
+        },
+        names.toArray());
+    return idsByName;
+  }
+
+  /**
+   * Returns the ids of the next keyset page of sections matching {@code filter}: the first {@code
+   * limit} ids after {@code afterId}.
+   */
+  public List<Long> findIdsAfter(SectionFilter filter, long afterId, int limit) {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String conditions = conditions(filter, args);
+    args.add(limit);
+    return jdbcTemplate.queryForList(
+        "select s.id from section s where s.id > ?"
+            + conditions
+            + " order by s.id fetch first ? rows only",
+        Long.class,
+        args.toArray());
+  }
+
+  public long count(SectionFilter filter) {
+    List<Object> args = new ArrayList<>();
+    String conditions = conditions(filter, args);
+    return jdbcTemplate.queryForObject(
+        "select count(*) from section s where 1 = 1" + conditions, Long.class, args.toArray());
+  }
+
+  /** Returns the smallest and largest id of the sections matching {@code filter}, if any. */
+  public Optional<IdRange> findIdRange(SectionFilter filter) {
+    List<Object> args = new ArrayList<>();
+    String conditions = conditions(filter, args);
+    return jdbcTemplate.query(
+        "select min(s.id), max(s.id) from section s where 1 = 1" + conditions,
+        rs -> {
+          rs.next();
+          long min = rs.getLong(1);
+          return rs.wasNull() ? Optional.empty() : Optional.of(new IdRange(min, rs.getLong(2)));
+        },
+        args.toArray());
+  }
+
+  /** Returns the largest number of geological classes of any section matching {@code filter}. */
+  public int findMaxGeologicalClassCount(SectionFilter filter) {
+    List<Object> args = new ArrayList<>();
+    String conditions = conditions(filter, args);
+    return jdbcTemplate.queryForObject(
+        "select coalesce(max(class_count), 0) from (select count(*) as class_count"
+            + " from geological_class g join section s on s.id = g.section_id where 1 = 1"
+            + conditions
+            + " group by g.section_id) counts",
+        Integer.class,
+        args.toArray());
+  }
+
+  /** Replaces the geological classes of existing sections with the classes they are given. */
+  public void replaceGeologicalClasses(List<Section> sections) {
+    if (sections.isEmpty()) {
+      return;
+    }
+
+    List<Long> sectionIds = sections.stream().map(Section::getId).toList();
+    jdbcTemplate.update(
+        "delete from geological_class where section_id in ("
+            + placeholders(sectionIds.size())
+            + ")",
+        sectionIds.toArray());
+
+    List<GeologicalClass> geologicalClasses = new ArrayList<>();
+    sections.forEach(section -> geologicalClasses.addAll(section.getGeologicalClasses()));
+    insertGeologicalClasses(geologicalClasses);
+  }
+
+  private void insertGeologicalClasses(List<GeologicalClass> geologicalClasses) {
+    if (geologicalClasses.isEmpty()) {
+      return;
+    }
+
+    List<Long> classIds = nextSequenceValues("geological_class_seq", geologicalClasses.size());
+    for (int i = 0; i < geologicalClasses.size(); i++) {
+      geologicalClasses.get(i).setId(classIds.get(i));
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_GEOLOGICAL_CLASS,
+        geologicalClasses,
+        geologicalClasses.size(),
+        (ps, geoClass) -> {
+          ps.setLong(1, geoClass.getId());
+          ps.setString(2, geoClass.getName());
+          ps.setString(3, geoClass.getCode());
+          ps.setLong(4, geoClass.getSection().getId());
+        });
+  }
+
+  /** Removes the sections an import job persisted after the given row. */
+  public void deleteImportedAfter(String jobId, int rowIndex) {
+    jdbcTemplate.update(DELETE_CLASSES_AFTER_ROW, jobId, rowIndex);
+    jdbcTemplate.update(DELETE_SECTIONS_AFTER_ROW, jobId, rowIndex);
+  }
+
+  /**
+   * Translates {@code filter} into conditions on the section alias {@code s}, each prefixed with
+   * {@code and}, and adds their arguments to {@code args}.
+   */
+  private static String conditions(SectionFilter filter, List<Object> args) {
+    StringBuilder sql = new StringBuilder();
+    if (filter.codes() != null && !filter.codes().isEmpty()) {
+      sql.append(" and exists (select 1 from geological_class c where c.section_id = s.id")
+          .append(" and c.code in (")
+          .append(placeholders(filter.codes().size()))
+          .append("))");
+      args.addAll(filter.codes());
+    }
+    if (filter.jobId() != null) {
+      sql.append(" and s.job_id = ?");
+      args.add(filter.jobId());
+    }
+    if (filter.minId() != null) {
+      sql.append(" and s.id >= ?");
+      args.add(filter.minId());
+    }
+    if (filter.maxId() != null) {
+      sql.append(" and s.id <= ?");
+      args.add(filter.maxId());
+    }
+    if (filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+      sql.append(" and s.name like ? escape '\\'");
+      args.add(filter.namePrefix().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+    }
+    return sql.toString();
+  }
+
+  private static String placeholders(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+
+  private List<Long> nextSequenceValues(String sequenceName, int count) {
+    return jdbcTemplate.queryForList(
+        "select next value for " + sequenceName + " from system_range(1, ?)", Long.class, count);
+  }
+
+  public record IdRange(long min, long max) {}
+}
@@ -1,5 +1,6 @@
 package com.natlex.assignment.persistence;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,4 +13,9 @@ public interface SectionRepository extends JpaRepository<Section, Long> {
 
   @Query("SELECT DISTINCT s FROM Section s JOIN s.geologicalClasses g WHERE g.code = :code")
   List<Section> findByGeologicalClassCode(@Param("code") String code);
+
+  @Query(
+      "SELECT DISTINCT s FROM Section s LEFT JOIN FETCH s.geologicalClasses"
+          + " WHERE s.id IN :ids ORDER BY s.id")
+  List<Section> findAllWithGeologicalClassesByIdIn(@Param("ids") Collection<Long> ids);
 }
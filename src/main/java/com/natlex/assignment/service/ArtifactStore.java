@@ -0,0 +1,209 @@
+package com.natlex.assignment.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.persistence.JobRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns the files that jobs leave on disk: export files in {@code storage.artifact-dir} and uploads
+ * in {@code storage.upload-dir}. Every {@code storage.artifacts.cleanup-interval} it deletes the
+ * files of jobs that are no longer in progress once they were last used longer than {@code
+ * storage.artifacts.ttl} ago, then deletes the least recently used ones until all files fit in
+ * {@code storage.artifacts.max-size}. Only files that a job that has ended refers to are deleted,
+ * so files of jobs in progress, uploads whose job is not committed yet and the servlet container's
+ * multipart files, which share the upload directory, are kept but count towards the size. Part
+ * files of parallel exports are the exception: an export deletes its parts itself, so parts older
+ * than the TTL were left behind by an export that never finished and are deleted as well.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArtifactStore {
+
+  private static final String PART_PREFIX = "export_part_";
+
+  private final JobRepository jobRepository;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<Path, Long> lastUsed = new ConcurrentHashMap<>();
+  private final AtomicLong usedBytes = new AtomicLong();
+  private final Lock cleanupLock = new ReentrantLock();
+
+  @Value("${storage.artifact-dir:${java.io.tmpdir}/natlex-artifacts}")
+  private String artifactDir;
+
+  @Value("${storage.upload-dir:${java.io.tmpdir}/natlex-uploads}")
+  private String uploadDir;
+
+  @Value("${storage.artifacts.ttl:PT24H}")
+  private Duration ttl;
+
+  @Value("${storage.artifacts.max-size:10GB}")
+  private DataSize maxSize;
+
+  private Counter expired;
+  private Counter evicted;
+
+  @PostConstruct
+  void init() throws IOException {
+    Files.createDirectories(Path.of(artifactDir));
+    Gauge.builder("storage.artifacts.used", usedBytes, AtomicLong::get)
+        .description("Bytes used by export files and uploads")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    expired =
+        Counter.builder("storage.artifacts.deleted")
+            .description("Job files deleted by the artifact store")
+            .tag("reason", "ttl")
+            .register(meterRegistry);
+    evicted =
+        Counter.builder("storage.artifacts.deleted")
+            .description("Job files deleted by the artifact store")
+            .tag("reason", "quota")
+            .register(meterRegistry);
+  }
+
+  /** Creates an empty export file with the given suffix. */
+  public File createExportFile(String suffix) throws IOException {
+    return Files.createTempFile(Path.of(artifactDir), "export_", suffix).toFile();
+  }
+
+  /** Creates an empty part file of a parallel export with the given suffix. */
+  public File createPartFile(String suffix) throws IOException {
+    return Files.createTempFile(Path.of(artifactDir), PART_PREFIX, suffix).toFile();
+  }
+
+  /** Marks {@code file} as used now, so it expires and is evicted after files used before it. */
+  public void touch(File file) {
+    lastUsed.put(file.toPath().toAbsolutePath(), System.currentTimeMillis());
+  }
+
+  /** Cleans up on another thread, unless a clean-up is already running. */
+  @Async
+  public void requestCleanUp() {
+    if (!cleanupLock.tryLock()) {
+      return;
+    }
+    try {
+      cleanUp();
+    } finally {
+      cleanupLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${storage.artifacts.cleanup-interval:PT5M}")
+  public void cleanUp() {
+    cleanupLock.lock();
+    try {
+      Set<Path> ended =
+          jobRepository.findFilePathsByJobStateNot(JobState.IN_PROGRESS).stream()
+              .map(filePath -> Path.of(filePath).toAbsolutePath())
+              .collect(Collectors.toSet());
+      long expiredBefore = System.currentTimeMillis() - ttl.toMillis();
+
+      List<Artifact> artifacts = artifacts();
+      Set<Path> present = artifacts.stream().map(Artifact::path).collect(Collectors.toSet());
+      lastUsed.keySet().retainAll(present);
+
+      long total = 0;
+      List<Artifact> candidates = new ArrayList<>();
+      for (Artifact artifact : artifacts) {
+        if (isPart(artifact) && artifact.lastUsed() < expiredBefore) {
+          delete(artifact, expired);
+        } else if (!ended.contains(artifact.path())) {
+          total += artifact.size();
+        } else if (artifact.lastUsed() < expiredBefore) {
+          delete(artifact, expired);
+        } else {
+          candidates.add(artifact);
+          total += artifact.size();
+        }
+      }
+
+      candidates.sort(Comparator.comparingLong(Artifact::lastUsed));
+      for (Artifact artifact : candidates) {
+        if (total <= maxSize.toBytes()) {
+          break;
+        }
+        if (delete(artifact, evicted)) {
+          total -= artifact.size();
+        }
+      }
+      usedBytes.set(total);
+    } finally {
+      cleanupLock.unlock();
+    }
+  }
+
+  private List<Artifact> artifacts() {
+    List<Artifact> artifacts = new ArrayList<>();
+    for (String dir : List.of(artifactDir, uploadDir)) {
+      if (!Files.isDirectory(Path.of(dir))) {
+        continue;
+      }
+      try (Stream<Path> files = Files.list(Path.of(dir))) {
+        files.filter(Files::isRegularFile).map(this::artifact).forEach(artifacts::add);
+      } catch (IOException | UncheckedIOException e) {
+        log.warn("Could not list job files in {}: {}", dir, e.getMessage());
+      }
+    }
+    return artifacts;
+  }
+
+  private Artifact artifact(Path file) {
+    Path path = file.toAbsolutePath();
+    File asFile = path.toFile();
+    long modified = asFile.lastModified();
+    return new Artifact(path, asFile.length(), Math.max(modified, lastUsed.getOrDefault(path, 0L)));
+  }
+
+  private static boolean isPart(Artifact artifact) {
+    return artifact.path().getFileName().toString().startsWith(PART_PREFIX);
+  }
+
+  private boolean delete(Artifact artifact, Counter reason) {
+    try {
+      Files.deleteIfExists(artifact.path());
+    } catch (IOException e) {
+      log.warn("Could not delete job file {}: {}", artifact.path(), e.getMessage());
+      return false;
+    }
+    lastUsed.remove(artifact.path());
+    reason.increment();
+    log.info("Deleted job file {} ({} bytes)", artifact.path(), artifact.size());
+    return true;
+  }
+
+  private record Artifact(Path path, long size, long lastUsed) {}
+}
@@ -0,0 +1,40 @@
+package com.natlex.assignment.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counts changes to sections and geological classes, so that data derived from them, like export
+ * files, can tell whether the dataset moved since it was built.
+ */
+@Component
+public class DatasetVersion {
+
+  private final AtomicLong version = new AtomicLong();
+
+  public long current() {
+    return version.get();
+  }
+
+  /**
+   * Bumps the version once the current transaction completes, or right away outside of one. Bumping
+   * only after the change is visible means that a reader who sees the old version never reads data
+   * newer than that version.
+   */
+  public void changed() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      version.incrementAndGet();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            version.incrementAndGet();
+          }
+        });
+  }
+}
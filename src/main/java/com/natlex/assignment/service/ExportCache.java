@@ -0,0 +1,88 @@
+package com.natlex.assignment.service;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.natlex.assignment.model.ExportFormat;
+
+/**
+ * Remembers the completed export of each format, compression and dataset version. Entries are
+ * evicted least recently used first once there are more than {@code export.cache.max-entries} of
+ * them or their files take more than {@code export.cache.max-size}. Evicting an entry keeps its
+ * file, which still belongs to its job until {@link ArtifactStore} expires it.
+ */
+@Component
+public class ExportCache {
+
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Lock lock = new ReentrantLock();
+  private long totalBytes;
+
+  @Value("${export.cache.max-entries:4}")
+  private int maxEntries;
+
+  @Value("${export.cache.max-size:1GB}")
+  private DataSize maxSize;
+
+  /** Returns the id of the export job built from {@code version}, if its file is still there. */
+  public Optional<String> find(ExportFormat format, boolean compressed, long version) {
+    lock.lock();
+    try {
+      Key key = new Key(format, compressed, version);
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return Optional.empty();
+      }
+      if (!entry.file().isFile()) {
+        entries.remove(key);
+        totalBytes -= entry.size();
+        return Optional.empty();
+      }
+      return Optional.of(entry.jobId());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void put(ExportFormat format, boolean compressed, long version, String jobId, File file) {
+    long size = file.length();
+    if (size > maxSize.toBytes()) {
+      return;
+    }
+
+    lock.lock();
+    try {
+      Entry previous =
+          entries.put(new Key(format, compressed, version), new Entry(jobId, file, size));
+      if (previous != null) {
+        totalBytes -= previous.size();
+      }
+      totalBytes += size;
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext() && (entries.size() > maxEntries || totalBytes > maxSize.toBytes())) {
+      Entry eldest = iterator.next();
+      iterator.remove();
+      totalBytes -= eldest.size();
+    }
+  }
+
+  private record Key(ExportFormat format, boolean compressed, long version) {}
+
+  private record Entry(String jobId, File file, long size) {}
+}
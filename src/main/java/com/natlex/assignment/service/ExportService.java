@@ -1,52 +1,290 @@
 package com.natlex.assignment.service;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import jakarta.persistence.EntityNotFoundException;
 
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Row;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.config.AsyncConfig;
+import com.natlex.assignment.exception.ArtifactExpiredException;
 import com.natlex.assignment.exception.ExportInProgressException;
+import com.natlex.assignment.exception.JobCancelledException;
 import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.model.ExportFormat;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
 import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.service.writer.SectionFileWriter;
+import com.natlex.assignment.service.writer.SectionPartWriter;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExportService {
 
   private final SectionService sectionService;
+  private final JobService jobService;
   private final JobRepository jobRepository;
+  private final JobProgressRegistry jobProgressRegistry;
+  private final DatasetVersion datasetVersion;
+  private final ExportCache exportCache;
+  private final ArtifactStore artifactStore;
 
-  @Async
-  public CompletableFuture<String> exportFile(String jobId, String filePath) throws IOException {
+  @Qualifier(AsyncConfig.EXPORT_WORKER_EXECUTOR)
+  private final AsyncTaskExecutor workerExecutor;
 
-    List<SectionResponse> sections = sectionService.getAllSections();
-    HSSFWorkbook workbook = createWorkbookWithSections(sections);
+  private static final int BUFFER_SIZE = 64 * 1024;
 
-    try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-      workbook.write(fileOut);
-    } catch (IOException e) {
+  @Value("${export.xlsx.row-window:100}")
+  private int xlsxRowWindow;
+
+  @Value("${export.parallel.workers:1}")
+  private int parallelWorkers;
+
+  @Value("${export.parallel.shards-per-worker:4}")
+  private int shardsPerWorker;
+
+  @Async(AsyncConfig.EXPORT_EXECUTOR)
+  public CompletableFuture<String> exportFile(
+      String jobId, String filePath, ExportFormat format, SectionFilter filter) throws IOException {
+
+    boolean compressed = filePath.endsWith(ExportFormat.GZIP_SUFFIX);
+    long version = datasetVersion.current();
+    try {
+      JobProgress progress = jobProgressRegistry.start(jobId);
+      progress.totalRows(sectionService.countSections(filter));
+
+      try (FileOutputStream fileOut = new FileOutputStream(filePath);
+          OutputStream target = compressed ? new GZIPOutputStream(fileOut, BUFFER_SIZE) : fileOut) {
+        // Cancelling a queued export only marks the job, as it was not running to be flagged yet.
+        if (jobService.isCancelled(jobId)) {
+          throw new JobCancelledException(jobId);
+        }
+        CountingOutputStream out =
+            new CountingOutputStream(new BufferedOutputStream(target, BUFFER_SIZE));
+        SectionListener onSectionWritten =
+            () -> {
+              progress.addRows(1);
+              progress.checkCancelled();
+            };
+        if (parallelWorkers > 1 && format.isSplittable()) {
+          writeShards(format, filter, out, onSectionWritten);
+        } else {
+          writeSections(format, filter, out, onSectionWritten);
+        }
+        out.flush();
+        if (target instanceof GZIPOutputStream gzipOut) {
+          gzipOut.finish();
+          jobRepository.updateUncompressedBytes(jobId, out.count);
+        }
+        progress.bytesWritten(fileOut.getChannel().position());
+      }
+    } catch (JobCancelledException e) {
+      deleteFile(filePath);
+      throw e;
+    } catch (IOException | RuntimeException e) {
       throw new JobException(jobId, e.getMessage());
     } finally {
-      workbook.close();
+      jobProgressRegistry.finish(jobId);
     }
 
+    // A cancel that came after the last section either loses to this or discards the file.
+    if (!jobService.updateJobState(jobId, JobState.DONE)) {
+      deleteFile(filePath);
+      throw new JobCancelledException(jobId);
+    }
+    if (filter.isEmpty()) {
+      exportCache.put(format, compressed, version, jobId, new File(filePath));
+    }
+    artifactStore.requestCleanUp();
     return CompletableFuture.completedFuture(jobId);
   }
 
+  /** Cancels an export job; a running export stops at its next section and deletes its file. */
+  public void cancelExport(String jobId) {
+    jobService.cancelJob(jobId, JobType.EXPORT, false);
+    jobProgressRegistry.cancel(jobId);
+  }
+
+  /**
+   * Returns the completed, unfiltered export of {@code format} if no section or geological class
+   * changed since it was built.
+   */
+  public Optional<Job> findReusableExport(ExportFormat format, boolean compressed) {
+    return exportCache
+        .find(format, compressed, datasetVersion.current())
+        .flatMap(jobRepository::findById)
+        .filter(job -> job.getJobState() == JobState.DONE)
+        .map(
+            job -> {
+              artifactStore.touch(new File(job.getFilePath()));
+              return job;
+            });
+  }
+
+  /**
+   * Writes the sections matching {@code filter} straight to {@code out}, without a job or an export
+   * file. The stream is flushed but not closed.
+   */
+  public void streamExport(ExportFormat format, SectionFilter filter, OutputStream out)
+      throws IOException {
+    writeSections(format, filter, out, () -> {});
+  }
+
+  private void writeSections(
+      ExportFormat format, SectionFilter filter, OutputStream out, SectionListener onSectionWritten)
+      throws IOException {
+    try (SectionFileWriter writer = SectionFileWriter.of(format, xlsxRowWindow)) {
+      writer.begin(out, sectionService.getMaxGeologicalClassCount(filter));
+      writeAll(writer, filter, onSectionWritten);
+      writer.finish();
+    }
+  }
+
+  /**
+   * Splits the sections into id ranges that up to {@code export.parallel.workers} tasks on the
+   * export worker executor read and encode into part files of their own, and appends the parts to
+   * {@code out} in id order, each as soon as it and the parts before it are complete. There are
+   * {@code export.parallel.shards-per-worker} ranges per worker, so a worker that finishes a sparse
+   * range early picks up another one.
+   */
+  private void writeShards(
+      ExportFormat format, SectionFilter filter, OutputStream out, SectionListener onSectionWritten)
+      throws IOException {
+    int maxClassCount = sectionService.getMaxGeologicalClassCount(filter);
+    List<SectionFilter> shards =
+        sectionService.splitByIdRange(filter, parallelWorkers * Math.max(shardsPerWorker, 1));
+
+    List<Path> parts = new ArrayList<>();
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    List<Future<?>> workers = new ArrayList<>();
+    AtomicInteger nextShard = new AtomicInteger();
+    try (SectionFileWriter writer = SectionFileWriter.of(format, xlsxRowWindow)) {
+      writer.begin(out, maxClassCount);
+      writer.finish();
+
+      for (int i = 0; i < shards.size(); i++) {
+        parts.add(artifactStore.createPartFile("." + format.getExtension()).toPath());
+        writes.add(new CompletableFuture<>());
+      }
+      Runnable worker =
+          () -> {
+            for (int i = nextShard.getAndIncrement();
+                i < shards.size();
+                i = nextShard.getAndIncrement()) {
+              try {
+                writePart(format, shards.get(i), maxClassCount, parts.get(i), onSectionWritten);
+                writes.get(i).complete(null);
+              } catch (Exception e) {
+                writes.get(i).completeExceptionally(e);
+              }
+            }
+          };
+      for (int i = 0; i < Math.min(parallelWorkers, shards.size()); i++) {
+        workers.add(workerExecutor.submit(worker));
+      }
+
+      try {
+        for (int i = 0; i < writes.size(); i++) {
+          writes.get(i).get();
+          Files.copy(parts.get(i), out);
+          Files.delete(parts.get(i));
+        }
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof IOException ioException
+            ? ioException
+            : new IOException("Failed to export sections: " + e.getCause().getMessage(), e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for export workers");
+      } finally {
+        // The workers finish the part they are writing but take no further range.
+        nextShard.set(shards.size());
+        awaitWorkers(workers);
+      }
+    } finally {
+      for (Path part : parts) {
+        Files.deleteIfExists(part);
+      }
+    }
+  }
+
+  /** Waits for the workers to stop, or interrupts them when the export itself is interrupted. */
+  private static void awaitWorkers(List<Future<?>> workers) {
+    for (Future<?> worker : workers) {
+      try {
+        worker.get();
+      } catch (ExecutionException e) {
+        // Failures of a part are reported through its write.
+      } catch (InterruptedException e) {
+        workers.forEach(w -> w.cancel(true));
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void writePart(
+      ExportFormat format,
+      SectionFilter shard,
+      int maxClassCount,
+      Path part,
+      SectionListener onSectionWritten)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE);
+        SectionPartWriter writer = SectionPartWriter.of(format)) {
+      writer.beginPart(out, maxClassCount);
+      writeAll(writer, shard, onSectionWritten);
+      writer.finish();
+    }
+  }
+
+  private void writeAll(
+      SectionFileWriter writer, SectionFilter filter, SectionListener onSectionWritten)
+      throws IOException {
+    try {
+      sectionService.forEachSection(
+          filter,
+          section -> {
+            try {
+              writer.writeSection(section);
+              onSectionWritten.sectionWritten();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
   public File getExportedFile(String jobId) {
     Job exportJob =
         jobRepository
@@ -54,50 +292,48 @@ public class ExportService {
             .orElseThrow(() -> new EntityNotFoundException("Job ID not found"));
     if (exportJob.getJobState() == JobState.IN_PROGRESS)
       throw new ExportInProgressException("Export is still in progress");
+    if (exportJob.getJobState() == JobState.CANCELLED)
+      throw new ArtifactExpiredException("Export was cancelled");
 
-    return new File(exportJob.getFilePath());
+    File exportedFile = new File(exportJob.getFilePath());
+    if (!exportedFile.isFile()) {
+      throw new ArtifactExpiredException("Export file expired");
+    }
+    artifactStore.touch(exportedFile);
+    return exportedFile;
   }
 
-  private HSSFWorkbook createWorkbookWithSections(List<SectionResponse> sections) {
-    HSSFWorkbook workbook = new HSSFWorkbook();
-    HSSFSheet sheet = workbook.createSheet("Sections");
-
-    int maxGeologicalClassCount = createSectionRows(sheet, sections);
-    createHeaderRow(sheet, maxGeologicalClassCount);
-
-    return workbook;
+  private void deleteFile(String filePath) {
+    if (!new File(filePath).delete()) {
+      log.warn("Failed to delete file of cancelled export: {}", filePath);
+    }
   }
 
-  private int createSectionRows(HSSFSheet sheet, List<SectionResponse> sections) {
-    int maxGeologicalClassCount = 0;
-
-    for (int i = 0; i < sections.size(); i++) {
-      SectionResponse currentSec = sections.get(i);
-      Row row = sheet.createRow(i + 1);
+  /** Called after each section is written; a cancelled job stops by throwing. */
+  @FunctionalInterface
+  private interface SectionListener {
+    void sectionWritten() throws IOException;
+  }
 
-      row.createCell(0).setCellValue(currentSec.name());
-      int geologicalClassCount = currentSec.geologicalClasses().size();
+  /** Counts the bytes written before compression. */
+  private static final class CountingOutputStream extends FilterOutputStream {
 
-      for (int j = 0; j < geologicalClassCount; j++) {
-        row.createCell(j * 2 + 1).setCellValue(currentSec.geologicalClasses().get(j).name());
-        row.createCell(j * 2 + 2).setCellValue(currentSec.geologicalClasses().get(j).code());
-      }
+    private long count;
 
-      if (geologicalClassCount > maxGeologicalClassCount) {
-        maxGeologicalClassCount = geologicalClassCount;
-      }
+    CountingOutputStream(OutputStream out) {
+      super(out);
     }
 
-    return maxGeologicalClassCount;
-  }
-
-  private void createHeaderRow(HSSFSheet sheet, int maxGeologicalClassCount) {
-    Row headerRow = sheet.createRow(0);
-    headerRow.createCell(0).setCellValue("Section name");
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
 
-    for (int i = 0; i < maxGeologicalClassCount; i++) {
-      headerRow.createCell(i * 2 + 1).setCellValue("Class name");
-      headerRow.createCell(i * 2 + 2).setCellValue("Class code");
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
     }
   }
 }
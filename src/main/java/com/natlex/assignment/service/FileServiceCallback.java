@@ -4,6 +4,7 @@ import java.util.function.BiConsumer;
 
 import org.springframework.stereotype.Component;
 
+import com.natlex.assignment.exception.JobCancelledException;
 import com.natlex.assignment.exception.JobException;
 import com.natlex.assignment.model.JobState;
 
@@ -16,16 +17,23 @@ import lombok.extern.slf4j.Slf4j;
 public class FileServiceCallback implements BiConsumer<String, Throwable> {
 
   private final JobService jobService;
+  private final JobEventPublisher jobEventPublisher;
 
   @Override
   public void accept(String jobId, Throwable ex) {
     if (ex == null) {
       jobService.updateJobState(jobId, JobState.DONE);
+      jobEventPublisher.publish(jobId);
       log.info("Job {} completed", jobId);
     } else {
-      if (ex.getCause() instanceof JobException) {
+      if (ex.getCause() instanceof JobCancelledException cancelled) {
+        jobService.updateJobState(cancelled.getJobId(), JobState.CANCELLED);
+        jobEventPublisher.publish(cancelled.getJobId());
+        log.info("Job {} cancelled", cancelled.getJobId());
+      } else if (ex.getCause() instanceof JobException) {
         jobId = ((JobException) ex.getCause()).getJobId();
         jobService.updateJobState(jobId, JobState.ERROR);
+        jobEventPublisher.publish(jobId);
         log.error("Job {} failed", jobId);
       } else {
         log.error("An unexpected exception: {}", ex.getMessage());
@@ -1,27 +1,115 @@
 package com.natlex.assignment.service;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileStorageService {
 
-  public File saveFile(MultipartFile multipartFile) throws IOException {
+  private static final int MAX_PREFIX_LENGTH = 64;
+  private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${storage.upload-dir:${java.io.tmpdir}/natlex-uploads}")
+  private String uploadDir;
+
+  private DistributionSummary uploadThroughput;
+
+  @PostConstruct
+  void init() throws IOException {
+    Files.createDirectories(Path.of(uploadDir));
+    uploadThroughput =
+        DistributionSummary.builder("storage.upload.throughput")
+            .description("Throughput of receiving and storing uploaded files")
+            .baseUnit("bytes/s")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Moves the uploaded part to the upload directory. Parts the container already spooled to disk
+   * are renamed in place rather than copied, so the upload is written to disk only once. The
+   * throughput is measured from {@code requestStartNanos}, as the container has already received
+   * and stored the part by the time it reaches the controller.
+   */
+  public File saveFile(MultipartFile multipartFile, long requestStartNanos) throws IOException {
+    File uploadedFile =
+        Files.createTempFile(
+                Path.of(uploadDir), prefixOf(multipartFile.getOriginalFilename()), ".tmp")
+            .toFile();
+    multipartFile.transferTo(uploadedFile);
+
+    long elapsedNanos = Math.max(System.nanoTime() - requestStartNanos, 1);
+    long bytesPerSecond = uploadedFile.length() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    uploadThroughput.record(bytesPerSecond);
+    log.info(
+        "Received and stored upload {} ({} bytes) in {} ms, {} bytes/s",
+        uploadedFile.getName(),
+        uploadedFile.length(),
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        bytesPerSecond);
+
+    return uploadedFile;
+  }
 
-    File tempFile = File.createTempFile(multipartFile.getOriginalFilename() + "_upload_", ".tmp");
-    InputStream inputStream = multipartFile.getInputStream();
-    try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
-      int read;
-      byte[] bytes = new byte[1024];
-      while ((read = inputStream.read(bytes)) != -1) {
-        outputStream.write(bytes, 0, read);
+  /** Returns the hex SHA-256 digest of a stored file. */
+  public String contentHash(File file) throws IOException {
+    MessageDigest digest = newSha256();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
       }
     }
-    return tempFile;
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  public void deleteFile(File file) {
+    if (!file.delete()) {
+      log.warn("Failed to delete uploaded file: {}", file.getAbsolutePath());
+    }
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String prefixOf(String originalFilename) {
+    String name = Objects.requireNonNullElse(StringUtils.getFilename(originalFilename), "");
+    name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+    if (name.length() > MAX_PREFIX_LENGTH) {
+      name = name.substring(0, MAX_PREFIX_LENGTH);
+    }
+    return name + "_upload_";
   }
 }
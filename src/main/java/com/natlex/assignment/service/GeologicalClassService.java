@@ -24,6 +24,7 @@ public class GeologicalClassService {
 
   private final GeologicalClassRepository geologicalClassRepository;
   private final SectionRepository sectionRepository;
+  private final DatasetVersion datasetVersion;
 
   @Transactional
   public GeologicalClassResponse saveGeologicalClass(
@@ -35,6 +36,7 @@ public class GeologicalClassService {
             .orElseThrow(() -> new EntityNotFoundException("Section not found"));
     geologicalClass.setSection(section);
     GeologicalClass savedGeologicalClass = geologicalClassRepository.save(geologicalClass);
+    datasetVersion.changed();
     return GeologicalClassMapper.toResponse(savedGeologicalClass);
   }
 
@@ -47,6 +49,7 @@ public class GeologicalClassService {
     geologicalClass.setName(request.name());
     geologicalClass.setCode(request.code());
     GeologicalClass updatedGeologicalClass = geologicalClassRepository.save(geologicalClass);
+    datasetVersion.changed();
     return GeologicalClassMapper.toResponse(updatedGeologicalClass);
   }
 
@@ -67,5 +70,6 @@ public class GeologicalClassService {
   @Transactional
   public void deleteGeologicalClass(Long id) {
     geologicalClassRepository.deleteById(id);
+    datasetVersion.changed();
   }
 }
@@ -0,0 +1,53 @@
+package com.natlex.assignment.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the last row index up to which every row of an import is committed. Writers may commit
+ * chunks out of order, so a chunk only moves the checkpoint once all earlier chunks are committed.
+ */
+public class ImportCheckpoint {
+
+  private final Lock lock = new ReentrantLock();
+  private final Map<Long, Integer> committedAhead = new HashMap<>();
+
+  private long nextSequence;
+  private int lastRowIndex;
+
+  public ImportCheckpoint(int lastRowIndex) {
+    this.lastRowIndex = lastRowIndex;
+  }
+
+  /** Returns the checkpoint to store along with the chunk, assuming the chunk commits. */
+  public int checkpointWith(ImportChunk chunk) {
+    lock.lock();
+    try {
+      if (chunk.sequence() != nextSequence) {
+        return lastRowIndex;
+      }
+      int rowIndex = chunk.lastRowIndex();
+      for (long sequence = nextSequence + 1; committedAhead.containsKey(sequence); sequence++) {
+        rowIndex = committedAhead.get(sequence);
+      }
+      return rowIndex;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void committed(ImportChunk chunk) {
+    lock.lock();
+    try {
+      committedAhead.put(chunk.sequence(), chunk.lastRowIndex());
+      while (committedAhead.containsKey(nextSequence)) {
+        lastRowIndex = committedAhead.remove(nextSequence);
+        nextSequence++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
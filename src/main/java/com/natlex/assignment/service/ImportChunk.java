@@ -0,0 +1,13 @@
+package com.natlex.assignment.service;
+
+import java.util.List;
+
+import com.natlex.assignment.api.request.SectionRequest;
+
+/** A run of parsed rows persisted together; {@code sequence} orders chunks within one import. */
+public record ImportChunk(long sequence, List<Integer> rowIndexes, List<SectionRequest> sections) {
+
+  public int lastRowIndex() {
+    return rowIndexes.get(rowIndexes.size() - 1);
+  }
+}
@@ -0,0 +1,150 @@
+package com.natlex.assignment.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Overlaps parsing and persistence of an import. The parsing thread puts chunks on a bounded
+ * queue, and blocks once the writers fall behind, while {@code writerCount} workers drain the queue
+ * and persist the chunks as tasks on {@code workerExecutor}. With no writers the chunks are
+ * persisted on the calling thread.
+ */
+public class ImportPipeline implements SectionBatchWriter.ChunkHandler, AutoCloseable {
+
+  private static final ImportChunk END_OF_INPUT = new ImportChunk(-1, List.of(), List.of());
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private final SectionBatchWriter.ChunkHandler chunkWriter;
+  private final int writerCount;
+  private final BlockingQueue<ImportChunk> queue;
+  private final List<Future<?>> workers;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private volatile boolean aborted;
+  private boolean stopped;
+
+  public ImportPipeline(
+      int writerCount,
+      int queueCapacity,
+      AsyncTaskExecutor workerExecutor,
+      SectionBatchWriter.ChunkHandler chunkWriter) {
+    this.chunkWriter = chunkWriter;
+    this.writerCount = Math.max(writerCount, 0);
+
+    if (this.writerCount == 0) {
+      this.queue = null;
+      this.workers = null;
+    } else {
+      this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+      this.workers = new ArrayList<>(this.writerCount);
+      for (int i = 0; i < this.writerCount; i++) {
+        workers.add(workerExecutor.submit(this::drain));
+      }
+    }
+  }
+
+  @Override
+  public void write(ImportChunk chunk) throws IOException {
+    if (workers == null) {
+      try {
+        chunkWriter.write(chunk);
+      } catch (RuntimeException e) {
+        failure.compareAndSet(null, e);
+        throwIfFailed();
+      }
+      return;
+    }
+
+    throwIfFailed();
+    try {
+      while (!queue.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        throwIfFailed();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for import writers");
+    }
+  }
+
+  /** Waits until every queued chunk is persisted and rethrows the first writer failure. */
+  public void finish() throws IOException {
+    stopWorkers();
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting for import writers");
+    }
+    throwIfFailed();
+  }
+
+  /** Discards queued chunks and stops the writers when the pipeline was not finished. */
+  @Override
+  public void close() {
+    aborted = true;
+    stopWorkers();
+  }
+
+  private void drain() {
+    try {
+      while (true) {
+        ImportChunk chunk = queue.take();
+        if (chunk == END_OF_INPUT) {
+          return;
+        }
+        if (aborted || failure.get() != null) {
+          continue;
+        }
+        try {
+          chunkWriter.write(chunk);
+        } catch (Exception e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void stopWorkers() {
+    if (workers == null || stopped) {
+      return;
+    }
+    stopped = true;
+
+    if (aborted) {
+      queue.clear();
+    }
+    try {
+      for (int i = 0; i < writerCount; i++) {
+        queue.put(END_OF_INPUT);
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } catch (InterruptedException e) {
+      workers.forEach(worker -> worker.cancel(true));
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      failure.compareAndSet(null, e.getCause());
+    }
+  }
+
+  private void throwIfFailed() throws IOException {
+    Throwable cause = failure.get();
+    if (cause == null) {
+      return;
+    }
+    if (cause instanceof IOException ioException) {
+      throw ioException;
+    }
+    throw new IOException("Failed to persist imported rows: " + cause.getMessage(), cause);
+  }
+}
@@ -1,26 +1,26 @@
 package com.natlex.assignment.service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InterruptedIOException;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.natlex.assignment.api.request.GeologicalClassRequest;
-import com.natlex.assignment.api.request.SectionRequest;
-import com.natlex.assignment.api.request.SectionRequest.SectionRequestBuilder;
+import com.natlex.assignment.config.AsyncConfig;
+import com.natlex.assignment.exception.JobCancelledException;
 import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.service.reader.SectionFileReader;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,65 +30,134 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ImportService {
 
+  private static final int NO_CHECKPOINT = -1;
+
   private final SectionService sectionService;
+  private final JobService jobService;
+  private final JobProgressRegistry jobProgressRegistry;
 
-  @Async
-  public CompletableFuture<String> importFile(String jobId, String filePath) throws IOException {
-    File file = new File(filePath);
+  @Qualifier(AsyncConfig.IMPORT_WRITER_EXECUTOR)
+  private final AsyncTaskExecutor workerExecutor;
 
-    try (InputStream inputStream = new FileInputStream(file);
-        HSSFWorkbook workbook = new HSSFWorkbook(inputStream)) {
+  @Value("${import.chunk-size:500}")
+  private int chunkSize;
 
-      HSSFSheet sheet = workbook.getSheetAt(0);
-      int numberOfRows = sheet.getPhysicalNumberOfRows();
-      if (numberOfRows <= 1) {
-        return CompletableFuture.completedFuture(jobId);
-      }
+  @Value("${import.pipeline.writers:2}")
+  private int writerCount;
 
-      processSheetRows(sheet, jobId);
+  @Value("${import.pipeline.queue-capacity:4}")
+  private int queueCapacity;
 
+  @Async(AsyncConfig.IMPORT_EXECUTOR)
+  public CompletableFuture<String> importFile(
+      String jobId, String filePath, FileFormat format, ImportMode mode) throws IOException {
+    return runImport(jobId, new File(filePath), format, mode, NO_CHECKPOINT);
+  }
+
+  /**
+   * Continues an interrupted import job from its last checkpoint. Rows appended after the
+   * checkpoint are removed first, so every row is persisted exactly once; merging is idempotent
+   * and simply runs again from the checkpoint.
+   */
+  @Async(AsyncConfig.IMPORT_EXECUTOR)
+  public CompletableFuture<String> resumeImport(Job job) throws IOException {
+    int checkpointRow = Optional.ofNullable(job.getCheckpointRow()).orElse(NO_CHECKPOINT);
+    ImportMode mode = Optional.ofNullable(job.getImportMode()).orElse(ImportMode.APPEND);
+    if (mode == ImportMode.APPEND) {
+      sectionService.deleteImportedSectionsAfter(job.getId(), checkpointRow);
+    }
+    log.info("Resuming import job {} after row {}", job.getId(), checkpointRow);
+
+    return runImport(
+        job.getId(), new File(job.getFilePath()), job.getFileFormat(), mode, checkpointRow);
+  }
+
+  /**
+   * Cancels an import job. A running import stops at its next row or chunk; with {@code rollback}
+   * it then removes the sections it added. The rollback is recorded on the job, so that only the
+   * import that stopped applies it, once nothing writes to the job's sections anymore. Merge
+   * imports only lose the sections they inserted, as replaced geological classes are not restored.
+   */
+  public void cancelImport(String jobId, boolean rollback) {
+    jobService.cancelJob(jobId, JobType.IMPORT, rollback);
+    jobProgressRegistry.cancel(jobId);
+  }
+
+  private CompletableFuture<String> runImport(
+      String jobId, File file, FileFormat format, ImportMode mode, int checkpointRow)
+      throws IOException {
+    ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointRow);
+    JobProgress progress = jobProgressRegistry.start(jobId);
+    boolean interrupted = false;
+
+    try (ImportPipeline pipeline =
+        new ImportPipeline(
+            // Merging must apply chunks in order, so it never runs more than one writer.
+            mode == ImportMode.MERGE ? Math.min(writerCount, 1) : writerCount,
+            queueCapacity,
+            workerExecutor,
+            chunk -> persistChunk(chunk, jobId, mode, checkpoint, progress))) {
+
+      // Cancelling a queued import only marks the job, as it was not running to be flagged yet.
+      if (jobService.isCancelled(jobId)) {
+        throw new JobCancelledException(jobId);
+      }
+      SectionBatchWriter writer = new SectionBatchWriter(chunkSize, pipeline);
+      SectionFileReader.of(file, format)
+          .read(
+              (rowIndex, section) -> {
+                progress.checkCancelled();
+                if (rowIndex > checkpointRow) {
+                  writer.handle(rowIndex, section);
+                }
+              },
+              progress);
+      writer.flush();
+      pipeline.finish();
+
+      // A cancel that came after the last row either loses to this or makes the job roll back.
+      if (!jobService.updateJobState(jobId, JobState.DONE)) {
+        throw new JobCancelledException(jobId);
+      }
       return CompletableFuture.completedFuture(jobId);
 
+    } catch (JobCancelledException e) {
+      // The pipeline is closed by now, so no chunk is persisted after the rollback.
+      if (sectionService.rollBackImport(jobId)) {
+        log.info("Rolled back the sections imported by cancelled job {}", jobId);
+      }
+      throw e;
+    } catch (InterruptedIOException e) {
+      // Keep the upload and leave the job in progress so it resumes on the next startup.
+      interrupted = true;
+      log.warn("Import job {} interrupted, it will resume from its checkpoint", jobId);
+      throw e;
     } catch (IOException e) {
       throw new JobException(jobId, e.getMessage());
     } finally {
-      deleteFile(file);
+      jobProgressRegistry.finish(jobId);
+      if (!interrupted) {
+        deleteFile(file);
+      }
     }
   }
 
-  private void processSheetRows(HSSFSheet sheet, String jobId) {
-    int headerColumnsCount = sheet.getRow(0).getPhysicalNumberOfCells();
-    Stream<Row> rowStream = StreamSupport.stream(sheet.spliterator(), false);
-
-    rowStream
-        .skip(1)
-        .forEach(
-            row -> {
-              SectionRequest section = parseRowToSectionRequest(row, headerColumnsCount);
-              sectionService.saveImportedSection(section, jobId);
-            });
-  }
-
-  private SectionRequest parseRowToSectionRequest(Row row, int columnsCount) {
-    SectionRequestBuilder sectionBuilder = SectionRequest.builder();
-    sectionBuilder.name(row.getCell(0).getStringCellValue());
-    List<GeologicalClassRequest> geologicalClasses = new ArrayList<>();
-
-    for (int i = 1; i < columnsCount; i += 2) {
-      Cell nameCell = row.getCell(i);
-      Cell codeCell = row.getCell(i + 1);
-
-      if (nameCell != null && codeCell != null) {
-        GeologicalClassRequest geoClass =
-            GeologicalClassRequest.builder()
-                .name(nameCell.getStringCellValue())
-                .code(codeCell.getStringCellValue())
-                .build();
-        geologicalClasses.add(geoClass);
-      }
+  private void persistChunk(
+      ImportChunk chunk,
+      String jobId,
+      ImportMode mode,
+      ImportCheckpoint checkpoint,
+      JobProgress progress)
+      throws JobCancelledException {
+    progress.checkCancelled();
+    int checkpointRow = checkpoint.checkpointWith(chunk);
+    if (mode == ImportMode.MERGE) {
+      sectionService.mergeImportedSections(chunk, jobId, checkpointRow);
+    } else {
+      sectionService.saveImportedSections(chunk, jobId, checkpointRow);
     }
-    sectionBuilder.geologicalClasses(geologicalClasses);
-    return sectionBuilder.build();
+    checkpoint.committed(chunk);
+    progress.addRows(chunk.sections().size());
   }
 
   private void deleteFile(File file) {
@@ -0,0 +1,90 @@
+package com.natlex.assignment.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.response.ImportValidationResponse;
+import com.natlex.assignment.api.response.RowErrorResponse;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.service.reader.SectionFileReader;
+import com.natlex.assignment.service.reader.SectionRowHandler;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dry-runs an import: parses the whole file and applies the bean validation of {@link
+ * SectionRequest} to every row without touching the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportValidationService {
+
+  private final Validator validator;
+
+  @Value("${import.validation.max-errors:1000}")
+  private int maxErrors;
+
+  public ImportValidationResponse validate(File file, FileFormat format) {
+    ValidationReport report = new ValidationReport();
+    String fileError = null;
+
+    try {
+      SectionFileReader.of(file, format).read(report);
+    } catch (IOException e) {
+      fileError = e.getMessage();
+    }
+
+    return ImportValidationResponse.builder()
+        .valid(fileError == null && report.errorCount == 0)
+        .rowsChecked(report.rowsChecked)
+        .errorCount(report.errorCount)
+        .errors(report.errors)
+        .fileError(fileError)
+        .build();
+  }
+
+  /** Collects row errors, keeping the details of the first {@code maxErrors} only. */
+  private class ValidationReport implements SectionRowHandler {
+
+    private final List<RowErrorResponse> errors = new ArrayList<>();
+    private long rowsChecked;
+    private long errorCount;
+
+    @Override
+    public void handle(int rowIndex, SectionRequest section) {
+      rowsChecked++;
+      Set<ConstraintViolation<SectionRequest>> violations = validator.validate(section);
+      if (!violations.isEmpty()) {
+        addError(
+            rowIndex,
+            violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList());
+      }
+    }
+
+    @Override
+    public void rowFailed(int rowIndex, String message) {
+      rowsChecked++;
+      addError(rowIndex, List.of(message));
+    }
+
+    private void addError(int rowIndex, List<String> messages) {
+      errorCount++;
+      if (errors.size() < maxErrors) {
+        errors.add(RowErrorResponse.builder().row(rowIndex + 1).messages(messages).build());
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.natlex.assignment.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.natlex.assignment.api.response.JobStateResponse;
+import com.natlex.assignment.config.AsyncConfig;
+import com.natlex.assignment.exception.TooManySubscribersException;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams job state to Server-Sent Events subscribers. A subscriber first gets a {@code state}
+ * event with the current state, then a {@code progress} event every {@code
+ * jobs.events.progress-interval} while the job runs, and a final {@code state} event when it ends,
+ * after which the stream is closed. Open streams are asynchronous requests and hold no thread
+ * between events; at most {@code jobs.events.max-subscribers} are open at a time.
+ *
+ * <p>Each job's state is read once per event and fanned out to its subscribers. Progress events
+ * are sent on the event executor, and a subscriber still receiving the previous one skips the next,
+ * so a slow client holds up neither the scheduler thread nor other subscribers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobEventPublisher {
+
+  static final String STATE_EVENT = "state";
+  static final String PROGRESS_EVENT = "progress";
+
+  private final JobService jobService;
+
+  @Qualifier(AsyncConfig.EVENT_EXECUTOR)
+  private final TaskExecutor eventExecutor;
+
+  private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+  @Value("${jobs.events.max-subscribers:1000}")
+  private int maxSubscribers;
+
+  @Value("${jobs.events.timeout:PT30M}")
+  private Duration timeout;
+
+  private Semaphore permits;
+
+  @PostConstruct
+  void init() {
+    permits = new Semaphore(maxSubscribers);
+  }
+
+  public SseEmitter subscribe(String jobId, JobType jobType) {
+    if (!permits.tryAcquire()) {
+      throw new TooManySubscribersException("Too many job event subscribers, please retry later");
+    }
+
+    Subscription subscription =
+        new Subscription(
+            jobId,
+            jobType,
+            new SseEmitter(timeout.toMillis()),
+            new AtomicBoolean(),
+            new AtomicBoolean());
+    subscription.emitter().onCompletion(() -> remove(subscription));
+    subscription.emitter().onTimeout(() -> remove(subscription));
+    subscription.emitter().onError(e -> remove(subscription));
+    subscriptions.compute(
+        jobId,
+        (id, jobSubscriptions) -> {
+          Set<Subscription> updated =
+              jobSubscriptions != null ? jobSubscriptions : ConcurrentHashMap.newKeySet();
+          updated.add(subscription);
+          return updated;
+        });
+
+    // Read the state only once subscribed, so that a job ending meanwhile is not missed.
+    try {
+      send(subscription, STATE_EVENT, jobService.getJobState(jobId, jobType));
+    } catch (EntityNotFoundException e) {
+      remove(subscription);
+      throw e;
+    }
+    return subscription.emitter();
+  }
+
+  /** Sends the current state of {@code jobId} to its subscribers, for instance when it ended. */
+  public void publish(String jobId) {
+    forEachSubscription(jobId, (subscription, state) -> send(subscription, STATE_EVENT, state));
+  }
+
+  @Scheduled(fixedDelayString = "${jobs.events.progress-interval:PT1S}")
+  public void publishProgress() {
+    subscriptions.keySet().forEach(jobId -> forEachSubscription(jobId, this::sendProgress));
+  }
+
+  private void forEachSubscription(
+      String jobId, BiConsumer<Subscription, JobStateResponse> sender) {
+    Map<JobType, Optional<JobStateResponse>> states = new EnumMap<>(JobType.class);
+    for (Subscription subscription : subscriptions.getOrDefault(jobId, Set.of())) {
+      Optional<JobStateResponse> state =
+          states.computeIfAbsent(subscription.jobType(), jobType -> findJobState(jobId, jobType));
+      if (state.isPresent()) {
+        sender.accept(subscription, state.get());
+      } else {
+        subscription.emitter().complete();
+        remove(subscription);
+      }
+    }
+  }
+
+  private Optional<JobStateResponse> findJobState(String jobId, JobType jobType) {
+    try {
+      return Optional.of(jobService.getJobState(jobId, jobType));
+    } catch (EntityNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void sendProgress(Subscription subscription, JobStateResponse state) {
+    if (!subscription.sending().compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      eventExecutor.execute(
+          () -> {
+            try {
+              send(subscription, PROGRESS_EVENT, state);
+            } finally {
+              subscription.sending().set(false);
+            }
+          });
+    } catch (TaskRejectedException e) {
+      subscription.sending().set(false);
+    }
+  }
+
+  private void send(Subscription subscription, String eventName, JobStateResponse state) {
+    boolean finished = state.state() != JobState.IN_PROGRESS;
+    try {
+      subscription
+          .emitter()
+          .send(
+              SseEmitter.event()
+                  .name(finished ? STATE_EVENT : eventName)
+                  .data(state, MediaType.APPLICATION_JSON));
+      if (finished) {
+        subscription.emitter().complete();
+        remove(subscription);
+      }
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Dropping subscriber of job {}: {}", subscription.jobId(), e.getMessage());
+      subscription.emitter().completeWithError(e);
+      remove(subscription);
+    }
+  }
+
+  private void remove(Subscription subscription) {
+    if (!subscription.removed().compareAndSet(false, true)) {
+      return;
+    }
+    subscriptions.computeIfPresent(
+        subscription.jobId(),
+        (jobId, jobSubscriptions) -> {
+          jobSubscriptions.remove(subscription);
+          return jobSubscriptions.isEmpty() ? null : jobSubscriptions;
+        });
+    permits.release();
+  }
+
+  private record Subscription(
+      String jobId,
+      JobType jobType,
+      SseEmitter emitter,
+      AtomicBoolean removed,
+      AtomicBoolean sending) {}
+}
@@ -0,0 +1,83 @@
+package com.natlex.assignment.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.natlex.assignment.exception.JobCancelledException;
+import com.natlex.assignment.service.reader.ReadProgressListener;
+
+import lombok.Getter;
+
+/**
+ * In-memory progress counters of a running job. Updates only touch these counters; {@link
+ * JobProgressRegistry} copies them to the job row periodically. Between rows, the job also checks
+ * here whether it was cancelled.
+ */
+public class JobProgress implements ReadProgressListener {
+
+  private static final long UNKNOWN = -1;
+
+  @Getter private final String jobId;
+  private final long startNanos = System.nanoTime();
+  private final LongAdder rowsProcessed = new LongAdder();
+
+  private volatile long totalRows = UNKNOWN;
+  private volatile long bytesProcessed;
+  private volatile long finishNanos;
+  private volatile boolean cancelled;
+
+  public JobProgress(String jobId) {
+    this.jobId = jobId;
+  }
+
+  public void addRows(long rows) {
+    rowsProcessed.add(rows);
+  }
+
+  @Override
+  public void totalRows(long rows) {
+    totalRows = rows;
+  }
+
+  @Override
+  public void bytesRead(long bytes) {
+    bytesProcessed = bytes;
+  }
+
+  public void bytesWritten(long bytes) {
+    bytesProcessed = bytes;
+  }
+
+  /** Asks the job to stop at its next row. */
+  void cancel() {
+    cancelled = true;
+  }
+
+  /** Throws once the job was cancelled, so that it stops at the next row. */
+  public void checkCancelled() throws JobCancelledException {
+    if (cancelled) {
+      throw new JobCancelledException(jobId);
+    }
+  }
+
+  void finish() {
+    finishNanos = System.nanoTime();
+  }
+
+  public long getRowsProcessed() {
+    return rowsProcessed.sum();
+  }
+
+  public Long getTotalRows() {
+    return totalRows == UNKNOWN ? null : totalRows;
+  }
+
+  public long getBytesProcessed() {
+    return bytesProcessed;
+  }
+
+  public long getElapsedMillis() {
+    long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+    return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+  }
+}
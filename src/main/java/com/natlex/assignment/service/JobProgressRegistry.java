@@ -0,0 +1,85 @@
+package com.natlex.assignment.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.natlex.assignment.persistence.JobRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the progress of running jobs in memory and flushes it to the job rows periodically. Jobs
+ * are flagged as cancelled here as well, so a job running on another instance only notices its
+ * cancellation when it tries to complete.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobProgressRegistry {
+
+  private final JobRepository jobRepository;
+  private final Map<String, JobProgress> runningJobs = new ConcurrentHashMap<>();
+  private final Lock flushLock = new ReentrantLock();
+
+  public JobProgress start(String jobId) {
+    JobProgress progress = new JobProgress(jobId);
+    runningJobs.put(jobId, progress);
+    return progress;
+  }
+
+  public Optional<JobProgress> find(String jobId) {
+    return Optional.ofNullable(runningJobs.get(jobId));
+  }
+
+  /** Flags a job running on this instance as cancelled, so that it stops at its next row. */
+  public void cancel(String jobId) {
+    JobProgress progress = runningJobs.get(jobId);
+    if (progress != null) {
+      progress.cancel();
+    }
+  }
+
+  /** Stops tracking the job and stores its final progress. */
+  public void finish(String jobId) {
+    flushLock.lock();
+    try {
+      JobProgress progress = runningJobs.remove(jobId);
+      if (progress != null) {
+        progress.finish();
+        save(progress);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${jobs.progress.flush-interval:PT2S}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      runningJobs.values().forEach(this::save);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void save(JobProgress progress) {
+    try {
+      jobRepository.updateProgress(
+          progress.getJobId(),
+          progress.getRowsProcessed(),
+          progress.getTotalRows(),
+          progress.getBytesProcessed(),
+          progress.getElapsedMillis());
+    } catch (RuntimeException e) {
+      log.warn("Failed to store progress of job {}: {}", progress.getJobId(), e.getMessage());
+    }
+  }
+}
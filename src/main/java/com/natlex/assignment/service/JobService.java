@@ -1,60 +1,182 @@
 package com.natlex.assignment.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.UUID;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import com.natlex.assignment.api.response.JobStateResponse;
+import com.natlex.assignment.exception.JobNotCancellableException;
 import com.natlex.assignment.mapper.JobMapper;
+import com.natlex.assignment.model.ExportFormat;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobState;
 import com.natlex.assignment.model.JobType;
 import com.natlex.assignment.persistence.JobRepository;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class JobService {
 
   private final JobRepository jobRepository;
+  private final JobProgressRegistry jobProgressRegistry;
+  private final ArtifactStore artifactStore;
+  private final JobStateCache jobStateCache;
 
+  /** Creates an export job; compressed exports are written to a {@code .gz} file. */
   @Transactional
-  public Job saveNewFileJob(JobType type) throws IOException {
+  public Job saveNewExportJob(ExportFormat format, boolean compressed) throws IOException {
 
+    String suffix = "." + format.getExtension() + (compressed ? ExportFormat.GZIP_SUFFIX : "");
     Job newJob =
         Job.builder()
             .id(UUID.randomUUID().toString())
-            .jobType(type)
+            .jobType(JobType.EXPORT)
             .jobState(JobState.IN_PROGRESS)
+            .filePath(artifactStore.createExportFile(suffix).getAbsolutePath())
             .build();
 
-    if (type.equals(JobType.EXPORT))
-      newJob.setFilePath(File.createTempFile("export_", ".xls").getAbsolutePath());
+    Job savedJob = jobRepository.save(newJob);
+    jobStateCache.put(savedJob);
+    return savedJob;
+  }
+
+  /**
+   * Creates an import job. A {@code reusable} job is found again by {@link #findReusableImportJob}
+   * while it is done or in progress; creating a second one for the same content, format and mode
+   * fails with a {@link DataIntegrityViolationException}, also when both are created concurrently.
+   */
+  @Transactional
+  public Job saveNewImportJob(
+      String filePath, FileFormat format, ImportMode mode, String contentHash, boolean reusable) {
+    Job newJob =
+        Job.builder()
+            .id(UUID.randomUUID().toString())
+            .jobType(JobType.IMPORT)
+            .jobState(JobState.IN_PROGRESS)
+            .filePath(filePath)
+            .fileFormat(format)
+            .importMode(mode)
+            .contentHash(contentHash)
+            .dedupKey(reusable ? dedupKey(contentHash, format, mode) : null)
+            .build();
+
+    Job savedJob = jobRepository.saveAndFlush(newJob);
+    jobStateCache.put(savedJob);
+    return savedJob;
+  }
 
-    return jobRepository.save(newJob);
+  /** Finds an import of the same content, format and mode that is done or still in progress. */
+  public Optional<Job> findReusableImportJob(
+      String contentHash, FileFormat format, ImportMode mode) {
+    return jobRepository.findByDedupKey(dedupKey(contentHash, format, mode));
   }
 
+  /** Deletes a job that could not be scheduled, together with its file. */
   @Transactional
-  public void updateJobState(String id, JobState state) {
-    Job importJob =
-        jobRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException("Job ID not found"));
-    importJob.setJobState(state);
-    jobRepository.save(importJob);
+  public void discardJob(Job job) {
+    jobRepository.deleteById(job.getId());
+    jobStateCache.evict(job.getId());
+    if (job.getFilePath() != null) {
+      try {
+        Files.deleteIfExists(Path.of(job.getFilePath()));
+      } catch (IOException e) {
+        log.warn("Failed to delete file of discarded job {}: {}", job.getId(), e.getMessage());
+      }
+    }
   }
 
+  /**
+   * Ends a job in progress with {@code state}. A job that is no longer in progress keeps its state,
+   * so a job that completes cannot overwrite its cancellation. Returns whether the state changed.
+   */
+  @Transactional
+  public boolean updateJobState(String id, JobState state) {
+    boolean updated = jobRepository.updateJobState(id, JobState.IN_PROGRESS, state) == 1;
+    if (updated && state != JobState.DONE) {
+      // A failed import can be uploaded again.
+      jobRepository.clearDedupKey(id);
+    }
+    jobStateCache.put(findJob(id));
+    return updated;
+  }
+
+  /**
+   * Marks a job in progress as cancelled, and with {@code rollback} records that the sections it
+   * imported are to be removed. The job itself stops once {@link JobProgressRegistry#cancel} flags
+   * it, when it starts if it is still queued, or when it tries to complete. Cancelling a cancelled
+   * job again has no effect, and jobs that already ended cannot be cancelled.
+   */
+  @Transactional
+  public void cancelJob(String id, JobType type, boolean rollback) {
+    jobRepository
+        .findByIdAndJobType(id, type)
+        .orElseThrow(() -> new EntityNotFoundException("Job ID not found"));
+    boolean cancelled =
+        jobRepository.cancel(id, rollback, JobState.IN_PROGRESS, JobState.CANCELLED) == 1;
+    Job job = findJob(id);
+    if (!cancelled && job.getJobState() != JobState.CANCELLED) {
+      throw new JobNotCancellableException("Job has already ended");
+    }
+    jobStateCache.put(job);
+  }
+
+  /** Whether the job was cancelled, read from the database rather than from the cache. */
+  public boolean isCancelled(String id) {
+    return jobRepository
+        .findById(id)
+        .filter(job -> job.getJobState() == JobState.CANCELLED)
+        .isPresent();
+  }
+
+  /**
+   * Serves status polls from memory where possible: running jobs take their progress from the
+   * progress registry, and finished jobs are cached with their final progress. A cached job that
+   * is in progress but not running here, like one whose progress was just stored, is read from the
+   * database again.
+   */
   public JobStateResponse getJobState(String id, JobType type) {
+    Optional<JobProgress> progress = jobProgressRegistry.find(id);
+    Job job =
+        jobStateCache
+            .find(id)
+            .filter(cached -> cached.getJobType() == type)
+            .filter(cached -> cached.getJobState() != JobState.IN_PROGRESS || progress.isPresent())
+            .orElseGet(() -> loadJob(id, type));
+    return progress
+        .map(running -> JobMapper.toJobState(job, running))
+        .orElseGet(() -> JobMapper.toJobState(job));
+  }
+
+  private static String dedupKey(String contentHash, FileFormat format, ImportMode mode) {
+    return contentHash + ":" + format + ":" + mode;
+  }
+
+  private Job findJob(String id) {
+    return jobRepository
+        .findById(id)
+        .orElseThrow(() -> new EntityNotFoundException("Job ID not found"));
+  }
+
+  private Job loadJob(String id, JobType type) {
     Job job =
         jobRepository
             .findByIdAndJobType(id, type)
             .orElseThrow(() -> new EntityNotFoundException("Job ID not found"));
-    return JobMapper.toJobState(job);
+    jobStateCache.put(job);
+    return job;
   }
 }
@@ -0,0 +1,97 @@
+package com.natlex.assignment.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.natlex.assignment.model.Job;
+
+/**
+ * Keeps recently written jobs in memory, so that status polls do not query the database. Entries
+ * expire {@code jobs.state-cache.ttl} after they were written, and the least recently read ones are
+ * evicted once there are more than {@code jobs.state-cache.max-entries}. The cache is local to each
+ * instance.
+ */
+@Component
+public class JobStateCache {
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Lock lock = new ReentrantLock();
+
+  @Value("${jobs.state-cache.max-entries:10000}")
+  private int maxEntries;
+
+  @Value("${jobs.state-cache.ttl:PT10M}")
+  private Duration ttl;
+
+  public Optional<Job> find(String id) {
+    lock.lock();
+    try {
+      Entry entry = entries.get(id);
+      if (entry == null) {
+        return Optional.empty();
+      }
+      if (System.nanoTime() - entry.writtenAt() > ttl.toNanos()) {
+        entries.remove(id);
+        return Optional.empty();
+      }
+      return Optional.of(entry.job());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Caches {@code job} once the current transaction commits, or right away outside of one. Until
+   * then the previous entry is dropped, so polls read the job from the database and never see a
+   * state that is rolled back.
+   */
+  public void put(Job job) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      store(job);
+      return;
+    }
+    evict(job.getId());
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            store(job);
+          }
+        });
+  }
+
+  public void evict(String id) {
+    lock.lock();
+    try {
+      entries.remove(id);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void store(Job job) {
+    lock.lock();
+    try {
+      entries.put(job.getId(), new Entry(job, System.nanoTime()));
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (entries.size() > maxEntries && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private record Entry(Job job, long writtenAt) {}
+}
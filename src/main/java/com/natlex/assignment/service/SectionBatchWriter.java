@@ -0,0 +1,49 @@
+package com.natlex.assignment.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.service.reader.SectionRowHandler;
+
+/** Collects parsed rows and hands them on in chunks of at most {@code chunkSize} sections. */
+public class SectionBatchWriter implements SectionRowHandler {
+
+  @FunctionalInterface
+  public interface ChunkHandler {
+    void write(ImportChunk chunk) throws IOException;
+  }
+
+  private final int chunkSize;
+  private final ChunkHandler chunkHandler;
+  private List<Integer> rowIndexes;
+  private List<SectionRequest> sections;
+  private long sequence;
+
+  public SectionBatchWriter(int chunkSize, ChunkHandler chunkHandler) {
+    this.chunkSize = Math.max(chunkSize, 1);
+    this.chunkHandler = chunkHandler;
+    this.rowIndexes = new ArrayList<>(this.chunkSize);
+    this.sections = new ArrayList<>(this.chunkSize);
+  }
+
+  @Override
+  public void handle(int rowIndex, SectionRequest section) throws IOException {
+    rowIndexes.add(rowIndex);
+    sections.add(section);
+    if (sections.size() >= chunkSize) {
+      flush();
+    }
+  }
+
+  public void flush() throws IOException {
+    if (sections.isEmpty()) {
+      return;
+    }
+    ImportChunk chunk = new ImportChunk(sequence++, rowIndexes, sections);
+    rowIndexes = new ArrayList<>(chunkSize);
+    sections = new ArrayList<>(chunkSize);
+    chunkHandler.write(chunk);
+  }
+}
@@ -1,11 +1,17 @@
 package com.natlex.assignment.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.natlex.assignment.api.request.SectionRequest;
@@ -14,6 +20,9 @@ import com.natlex.assignment.mapper.GeologicalClassMapper;
 import com.natlex.assignment.mapper.SectionMapper;
 import com.natlex.assignment.model.GeologicalClass;
 import com.natlex.assignment.model.Section;
+import com.natlex.assignment.model.SectionFilter;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.persistence.SectionJdbcRepository;
 import com.natlex.assignment.persistence.SectionRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -23,19 +32,95 @@ import lombok.RequiredArgsConstructor;
 public class SectionService {
 
   private final SectionRepository sectionRepository;
+  private final SectionJdbcRepository sectionJdbcRepository;
+  private final JobRepository jobRepository;
+  private final EntityManager entityManager;
+  private final DatasetVersion datasetVersion;
+
+  @Value("${sections.read.page-size:500}")
+  private int readPageSize;
 
   @Transactional
   public SectionResponse saveSection(SectionRequest request) {
     Section section = SectionMapper.toEntity(request);
     Section savedSection = sectionRepository.save(section);
+    datasetVersion.changed();
     return SectionMapper.toResponse(savedSection);
   }
 
+  /** Persists an import chunk and advances the job checkpoint in the same transaction. */
   @Transactional
-  public void saveImportedSection(SectionRequest request, String JobId) {
-    Section section = SectionMapper.toEntity(request);
-    section.setJobId(JobId);
-    sectionRepository.save(section);
+  public void saveImportedSections(ImportChunk chunk, String jobId, int checkpointRow) {
+    List<Section> sections = new ArrayList<>(chunk.sections().size());
+    for (int i = 0; i < chunk.sections().size(); i++) {
+      Section section = SectionMapper.toEntity(chunk.sections().get(i));
+      section.setJobId(jobId);
+      section.setRowIndex(chunk.rowIndexes().get(i));
+      sections.add(section);
+    }
+    sectionJdbcRepository.batchInsert(sections);
+    jobRepository.advanceCheckpoint(jobId, checkpointRow);
+    datasetVersion.changed();
+  }
+
+  /**
+   * Merges an import chunk by section name: sections that already exist get their geological
+   * classes replaced, the others are inserted. Existing sections are found with one query per
+   * chunk, and a later row wins over an earlier row with the same name.
+   */
+  @Transactional
+  public void mergeImportedSections(ImportChunk chunk, String jobId, int checkpointRow) {
+    Map<String, Integer> lastIndexByName = new LinkedHashMap<>();
+    for (int i = 0; i < chunk.sections().size(); i++) {
+      lastIndexByName.put(chunk.sections().get(i).name(), i);
+    }
+    Map<String, List<Long>> existingIds =
+        sectionJdbcRepository.findIdsByNames(lastIndexByName.keySet());
+
+    List<Section> newSections = new ArrayList<>();
+    List<Section> mergedSections = new ArrayList<>();
+    lastIndexByName.forEach(
+        (name, i) -> {
+          SectionRequest request = chunk.sections().get(i);
+          List<Long> ids = existingIds.get(name);
+          if (ids == null) {
+            Section section = SectionMapper.toEntity(request);
+            section.setJobId(jobId);
+            section.setRowIndex(chunk.rowIndexes().get(i));
+            newSections.add(section);
+          } else {
+            for (Long id : ids) {
+              Section section = SectionMapper.toEntity(request);
+              section.setId(id);
+              mergedSections.add(section);
+            }
+          }
+        });
+
+    sectionJdbcRepository.batchInsert(newSections);
+    sectionJdbcRepository.replaceGeologicalClasses(mergedSections);
+    jobRepository.advanceCheckpoint(jobId, checkpointRow);
+    datasetVersion.changed();
+  }
+
+  @Transactional
+  public void deleteImportedSectionsAfter(String jobId, int rowIndex) {
+    sectionJdbcRepository.deleteImportedAfter(jobId, rowIndex);
+    datasetVersion.changed();
+  }
+
+  /**
+   * Removes every section of a cancelled import if its rollback was requested and not applied yet.
+   * Returns whether it was applied now.
+   */
+  @Transactional
+  public boolean rollBackImport(String jobId) {
+    if (jobRepository.clearRollbackRequest(jobId) == 0) {
+      return false;
+    }
+    sectionJdbcRepository.deleteImportedAfter(jobId, -1);
+    datasetVersion.changed();
+    return true;
   }
 
   @Transactional
@@ -61,14 +146,64 @@ public class SectionService {
     existingSection.setName(request.name());
 
     Section updatedSection = sectionRepository.save(existingSection);
+    datasetVersion.changed();
     return SectionMapper.toResponse(updatedSection);
   }
 
-  @Transactional
   public List<SectionResponse> getAllSections() {
-    return sectionRepository.findAll().stream()
-        .map(SectionMapper::toResponse)
-        .collect(Collectors.toList());
+    List<SectionResponse> sections = new ArrayList<>();
+    forEachSection(SectionFilter.NONE, sections::add);
+    return sections;
+  }
+
+  /**
+   * Passes every section matching {@code filter} to {@code consumer} in id order. The filter is
+   * applied by the database, and sections are read in keyset pages of {@code
+   * sections.read.page-size} with their geological classes fetched in the same query. The
+   * persistence context is cleared after each page, so memory use does not grow with the number of
+   * sections.
+   */
+  public void forEachSection(SectionFilter filter, Consumer<SectionResponse> consumer) {
+    long lastId = Long.MIN_VALUE;
+    List<Long> ids;
+    do {
+      ids = sectionJdbcRepository.findIdsAfter(filter, lastId, readPageSize);
+      if (ids.isEmpty()) {
+        break;
+      }
+      for (Section section : sectionRepository.findAllWithGeologicalClassesByIdIn(ids)) {
+        consumer.accept(SectionMapper.toResponse(section));
+      }
+      entityManager.clear();
+      lastId = ids.get(ids.size() - 1);
+    } while (ids.size() == readPageSize);
+  }
+
+  /**
+   * Splits the sections matching {@code filter} into at most {@code shards} filters over
+   * consecutive, equally wide id ranges, in id order. Returns no filters when nothing matches.
+   */
+  public List<SectionFilter> splitByIdRange(SectionFilter filter, int shards) {
+    return sectionJdbcRepository
+        .findIdRange(filter)
+        .map(
+            range -> {
+              long width = Math.max(1, (range.max() - range.min()) / Math.max(shards, 1) + 1);
+              List<SectionFilter> filters = new ArrayList<>();
+              for (long from = range.min(); from <= range.max(); from += width) {
+                filters.add(filter.withIdRange(from, Math.min(from + width - 1, range.max())));
+              }
+              return filters;
+            })
+        .orElse(List.of());
+  }
+
+  public long countSections(SectionFilter filter) {
+    return sectionJdbcRepository.count(filter);
+  }
+
+  public int getMaxGeologicalClassCount(SectionFilter filter) {
+    return sectionJdbcRepository.findMaxGeologicalClassCount(filter);
   }
 
   public SectionResponse getSectionById(Long id) {
@@ -82,6 +217,7 @@ public class SectionService {
   @Transactional
   public void deleteSection(Long id) {
     sectionRepository.deleteById(id);
+    datasetVersion.changed();
   }
 
   public List<SectionResponse> getSectionsByGeologicalClassCode(String code) {
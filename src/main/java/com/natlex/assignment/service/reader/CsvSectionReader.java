@@ -0,0 +1,227 @@
+package com.natlex.assignment.service.reader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.request.SectionRequest.SectionRequestBuilder;
+
+/**
+ * Reads delimiter-separated files (RFC 4180 quoting) by memory-mapping them in windows and scanning
+ * the mapped bytes in place. Lines are never materialised: a {@code String} is only decoded for
+ * each field value, and empty unquoted fields count as missing cells.
+ */
+public class CsvSectionReader implements SectionFileReader {
+
+  private static final long MAX_WINDOW_SIZE = 1L << 30;
+  private static final byte QUOTE = '"';
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private final File file;
+  private final byte delimiter;
+  private final long windowSize;
+  private final List<String> fields = new ArrayList<>();
+
+  private ReadProgressListener progress = ReadProgressListener.NONE;
+  private byte[] scratch = new byte[256];
+  private int rowIndex;
+  private int headerColumnsCount = -1;
+
+  public CsvSectionReader(File file, byte delimiter) {
+    this(file, delimiter, MAX_WINDOW_SIZE);
+  }
+
+  CsvSectionReader(File file, byte delimiter, long windowSize) {
+    this.file = file;
+    this.delimiter = delimiter;
+    this.windowSize = windowSize;
+  }
+
+  @Override
+  public void read(SectionRowHandler handler, ReadProgressListener progress)
+      throws IOException {
+    if (!file.isFile()) {
+      throw new FileNotFoundException(file.getPath() + " (No such file)");
+    }
+    this.progress = progress;
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = hasByteOrderMark(channel) ? UTF8_BOM.length : 0;
+
+      while (position < size) {
+        long length = Math.min(windowSize, size - position);
+        boolean lastWindow = position + length == size;
+        ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+        int consumed = parseWindow(window, position, lastWindow, handler);
+        if (consumed == 0 && !lastWindow) {
+          throw new IOException("Row starting at byte " + position + " is too large");
+        }
+        position += consumed;
+      }
+    }
+  }
+
+  private boolean hasByteOrderMark(FileChannel channel) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(UTF8_BOM.length);
+    channel.read(head, 0);
+    return !head.hasRemaining() && Arrays.equals(head.array(), UTF8_BOM);
+  }
+
+  /** Parses every complete record of the window and returns the number of bytes consumed. */
+  private int parseWindow(
+      ByteBuffer window, long windowPosition, boolean lastWindow, SectionRowHandler handler)
+      throws IOException {
+    int limit = window.limit();
+    int recordStart = 0;
+
+    while (recordStart < limit) {
+      int recordEnd = parseRecord(window, recordStart, limit, lastWindow);
+      if (recordEnd < 0) {
+        break;
+      }
+      handleRecord(handler);
+      progress.bytesRead(windowPosition + recordEnd);
+      recordStart = recordEnd;
+    }
+    return recordStart;
+  }
+
+  /**
+   * Splits the record starting at {@code start} into {@link #fields} and returns the offset after
+   * its line terminator, or -1 when the record continues past the end of the window.
+   */
+  private int parseRecord(ByteBuffer window, int start, int limit, boolean lastWindow)
+      throws IOException {
+    fields.clear();
+    int pos = start;
+
+    while (true) {
+      if (pos < limit && window.get(pos) == QUOTE) {
+        pos = parseQuotedField(window, pos + 1, limit, lastWindow);
+        if (pos < 0) {
+          if (lastWindow) {
+            throw new IOException("Unterminated quoted field in row " + rowIndex);
+          }
+          return -1;
+        }
+      } else {
+        int end = pos;
+        while (end < limit && !isFieldEnd(window.get(end))) {
+          end++;
+        }
+        fields.add(end > pos ? decode(window, pos, end - pos) : null);
+        pos = end;
+      }
+
+      if (pos >= limit) {
+        return lastWindow ? limit : -1;
+      }
+
+      byte b = window.get(pos);
+      if (b == delimiter) {
+        pos++;
+      } else if (b == LF) {
+        return pos + 1;
+      } else if (b == CR) {
+        if (pos + 1 < limit) {
+          return window.get(pos + 1) == LF ? pos + 2 : pos + 1;
+        }
+        return lastWindow ? limit : -1;
+      } else {
+        throw new IOException("Unexpected character after quoted field in row " + rowIndex);
+      }
+    }
+  }
+
+  private int parseQuotedField(ByteBuffer window, int pos, int limit, boolean lastWindow) {
+    int length = 0;
+
+    while (pos < limit) {
+      byte b = window.get(pos);
+      if (b == QUOTE) {
+        if (pos + 1 >= limit && !lastWindow) {
+          return -1;
+        }
+        if (pos + 1 < limit && window.get(pos + 1) == QUOTE) {
+          length = append(length, QUOTE);
+          pos += 2;
+          continue;
+        }
+        fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        return pos + 1;
+      }
+      length = append(length, b);
+      pos++;
+    }
+    return -1;
+  }
+
+  private boolean isFieldEnd(byte b) {
+    return b == delimiter || b == LF || b == CR;
+  }
+
+  private int append(int length, byte b) {
+    if (length == scratch.length) {
+      scratch = Arrays.copyOf(scratch, scratch.length * 2);
+    }
+    scratch[length] = b;
+    return length + 1;
+  }
+
+  private String decode(ByteBuffer window, int offset, int length) {
+    if (length > scratch.length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    window.get(offset, scratch, 0, length);
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private void handleRecord(SectionRowHandler handler) throws IOException {
+    if (fields.size() == 1 && fields.get(0) == null) {
+      return;
+    }
+
+    if (headerColumnsCount < 0) {
+      headerColumnsCount = fields.size();
+    } else if (getField(0) == null || getField(0).isEmpty()) {
+      handler.rowFailed(rowIndex, "Missing section name at column 0 of row " + rowIndex);
+    } else {
+      handler.handle(rowIndex, parseRowToSectionRequest(headerColumnsCount));
+    }
+    rowIndex++;
+  }
+
+  private SectionRequest parseRowToSectionRequest(int columnsCount) {
+    SectionRequestBuilder sectionBuilder = SectionRequest.builder();
+    sectionBuilder.name(getField(0));
+    List<GeologicalClassRequest> geologicalClasses = new ArrayList<>();
+
+    for (int i = 1; i < columnsCount; i += 2) {
+      String name = getField(i);
+      String code = getField(i + 1);
+
+      if (name != null && code != null) {
+        geologicalClasses.add(GeologicalClassRequest.builder().name(name).code(code).build());
+      }
+    }
+    sectionBuilder.geologicalClasses(geologicalClasses);
+    return sectionBuilder.build();
+  }
+
+  private String getField(int index) {
+    return index < fields.size() ? fields.get(index) : null;
+  }
+}
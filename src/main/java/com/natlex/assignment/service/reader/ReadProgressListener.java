@@ -0,0 +1,13 @@
+package com.natlex.assignment.service.reader;
+
+/** Receives progress from a {@link SectionFileReader} while it consumes its file. */
+public interface ReadProgressListener {
+
+  ReadProgressListener NONE = new ReadProgressListener() {};
+
+  /** Called once the reader knows how many data rows the file holds. */
+  default void totalRows(long rows) {}
+
+  /** Called with the number of bytes of the file consumed so far. */
+  default void bytesRead(long bytes) {}
+}
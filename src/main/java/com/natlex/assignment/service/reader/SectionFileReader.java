@@ -0,0 +1,23 @@
+package com.natlex.assignment.service.reader;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.natlex.assignment.model.FileFormat;
+
+public interface SectionFileReader {
+
+  void read(SectionRowHandler handler, ReadProgressListener progress) throws IOException;
+
+  default void read(SectionRowHandler handler) throws IOException {
+    read(handler, ReadProgressListener.NONE);
+  }
+
+  static SectionFileReader of(File file, FileFormat format) {
+    return switch (format) {
+      case XLS -> new XlsSectionReader(file);
+      case CSV -> new CsvSectionReader(file, (byte) ',');
+      case TSV -> new CsvSectionReader(file, (byte) '\t');
+    };
+  }
+}
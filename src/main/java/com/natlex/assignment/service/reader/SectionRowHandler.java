@@ -0,0 +1,16 @@
+package com.natlex.assignment.service.reader;
+
+import java.io.IOException;
+
+import com.natlex.assignment.api.request.SectionRequest;
+
+@FunctionalInterface
+public interface SectionRowHandler {
+
+  void handle(int rowIndex, SectionRequest section) throws IOException;
+
+  /** Reports a row that cannot be parsed; fails the read by default. */
+  default void rowFailed(int rowIndex, String message) throws IOException {
+    throw new IOException("Row " + rowIndex + ": " + message);
+  }
+}
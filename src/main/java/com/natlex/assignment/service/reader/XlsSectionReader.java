@@ -0,0 +1,294 @@
+package com.natlex.assignment.service.reader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.EmptyFileException;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.request.SectionRequest.SectionRequestBuilder;
+
+/**
+ * Reads the first sheet of a legacy {@code .xls} file with the HSSF event API, handing every row
+ * after the header to a {@link SectionRowHandler} as soon as it is complete. Only the cells of the
+ * current row and the shared string table are kept in memory, whatever the size of the file.
+ */
+public class XlsSectionReader extends AbortableHSSFListener implements SectionFileReader {
+
+  private static final short CONTINUE = 0;
+  private static final short ABORT = 1;
+
+  private final File file;
+  private final Map<Integer, Object> rowCells = new HashMap<>();
+
+  private SectionRowHandler handler;
+  private ReadProgressListener progress;
+  private CountingInputStream workbookStream;
+  private SSTRecord sstRecord;
+  private int sheetIndex = -1;
+  private int currentRow = -1;
+  private int headerColumnsCount = -1;
+  private int pendingFormulaRow = -1;
+  private int pendingFormulaColumn = -1;
+
+  public XlsSectionReader(File file) {
+    this.file = file;
+  }
+
+  @Override
+  public void read(SectionRowHandler handler, ReadProgressListener progress)
+      throws IOException {
+    if (!file.isFile()) {
+      throw new FileNotFoundException(file.getPath() + " (No such file)");
+    }
+    this.handler = handler;
+    this.progress = progress;
+
+    try (POIFSFileSystem fileSystem = new POIFSFileSystem(file)) {
+      DirectoryNode root = fileSystem.getRoot();
+      HSSFRequest request = new HSSFRequest();
+      request.addListenerForAllRecords(this);
+
+      try (CountingInputStream workbookStream =
+          new CountingInputStream(
+              root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root)))) {
+        this.workbookStream = workbookStream;
+        new HSSFEventFactory().abortableProcessEvents(request, workbookStream);
+      }
+    } catch (EmptyFileException e) {
+      throw new IOException(e.getMessage(), e);
+    } catch (HSSFUserException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public short abortableProcessRecord(Record record) throws HSSFUserException {
+    try {
+      return handleRecord(record);
+    } catch (IOException e) {
+      throw new HSSFUserException(e.getMessage(), e);
+    }
+  }
+
+  private short handleRecord(Record record) throws IOException {
+    switch (record.getSid()) {
+      case SSTRecord.sid -> sstRecord = (SSTRecord) record;
+      case BOFRecord.sid -> {
+        if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+          sheetIndex++;
+        }
+      }
+      case DimensionsRecord.sid -> {
+        if (sheetIndex == 0) {
+          DimensionsRecord dimensions = (DimensionsRecord) record;
+          progress.totalRows(Math.max(dimensions.getLastRow() - dimensions.getFirstRow() - 1, 0));
+        }
+      }
+      case EOFRecord.sid -> {
+        if (sheetIndex == 0) {
+          completeRow();
+          return ABORT;
+        }
+      }
+      default -> {
+        if (sheetIndex == 0) {
+          processCellRecord(record);
+        }
+      }
+    }
+    return CONTINUE;
+  }
+
+  private void processCellRecord(Record record) throws IOException {
+    switch (record.getSid()) {
+      case LabelSSTRecord.sid -> {
+        LabelSSTRecord label = (LabelSSTRecord) record;
+        String value = sstRecord.getString(label.getSSTIndex()).getString();
+        addCell(label.getRow(), label.getColumn(), value);
+      }
+      case LabelRecord.sid -> {
+        LabelRecord label = (LabelRecord) record;
+        addCell(label.getRow(), label.getColumn(), label.getValue());
+      }
+      case BlankRecord.sid -> {
+        BlankRecord blank = (BlankRecord) record;
+        addCell(blank.getRow(), blank.getColumn(), "");
+      }
+      case MulBlankRecord.sid -> {
+        MulBlankRecord blanks = (MulBlankRecord) record;
+        for (int column = blanks.getFirstColumn(); column <= blanks.getLastColumn(); column++) {
+          addCell(blanks.getRow(), column, "");
+        }
+      }
+      case NumberRecord.sid -> {
+        NumberRecord number = (NumberRecord) record;
+        addCell(number.getRow(), number.getColumn(), CellType.NUMERIC);
+      }
+      case RKRecord.sid -> {
+        RKRecord number = (RKRecord) record;
+        addCell(number.getRow(), number.getColumn(), CellType.NUMERIC);
+      }
+      case MulRKRecord.sid -> {
+        MulRKRecord numbers = (MulRKRecord) record;
+        for (int column = numbers.getFirstColumn(); column <= numbers.getLastColumn(); column++) {
+          addCell(numbers.getRow(), column, CellType.NUMERIC);
+        }
+      }
+      case BoolErrRecord.sid -> {
+        BoolErrRecord boolErr = (BoolErrRecord) record;
+        CellType type = boolErr.isBoolean() ? CellType.BOOLEAN : CellType.ERROR;
+        addCell(boolErr.getRow(), boolErr.getColumn(), type);
+      }
+      case FormulaRecord.sid -> {
+        FormulaRecord formula = (FormulaRecord) record;
+        if (formula.hasCachedResultString()) {
+          pendingFormulaRow = formula.getRow();
+          pendingFormulaColumn = formula.getColumn();
+        } else {
+          addCell(formula.getRow(), formula.getColumn(), CellType.FORMULA);
+        }
+      }
+      case StringRecord.sid -> {
+        if (pendingFormulaColumn >= 0) {
+          addCell(pendingFormulaRow, pendingFormulaColumn, ((StringRecord) record).getString());
+          pendingFormulaColumn = -1;
+        }
+      }
+      default -> {}
+    }
+  }
+
+  private void addCell(int row, int column, Object value) throws IOException {
+    if (row != currentRow) {
+      completeRow();
+      currentRow = row;
+    }
+    rowCells.put(column, value);
+  }
+
+  private void completeRow() throws IOException {
+    if (rowCells.isEmpty()) {
+      return;
+    }
+
+    if (headerColumnsCount < 0) {
+      headerColumnsCount = rowCells.size();
+    } else {
+      SectionRequest section = parseCurrentRow();
+      if (section != null) {
+        handler.handle(currentRow, section);
+      }
+      progress.bytesRead(workbookStream.count);
+    }
+    rowCells.clear();
+  }
+
+  /** Parses the current row, or reports it to the handler and returns null when it is invalid. */
+  private SectionRequest parseCurrentRow() throws IOException {
+    try {
+      return parseRowToSectionRequest(headerColumnsCount);
+    } catch (IllegalStateException e) {
+      handler.rowFailed(currentRow, e.getMessage());
+      return null;
+    }
+  }
+
+  private SectionRequest parseRowToSectionRequest(int columnsCount) {
+    SectionRequestBuilder sectionBuilder = SectionRequest.builder();
+    sectionBuilder.name(getStringCellValue(0));
+    List<GeologicalClassRequest> geologicalClasses = new ArrayList<>();
+
+    for (int i = 1; i < columnsCount; i += 2) {
+      if (rowCells.containsKey(i) && rowCells.containsKey(i + 1)) {
+        GeologicalClassRequest geoClass =
+            GeologicalClassRequest.builder()
+                .name(getStringCellValue(i))
+                .code(getStringCellValue(i + 1))
+                .build();
+        geologicalClasses.add(geoClass);
+      }
+    }
+    sectionBuilder.geologicalClasses(geologicalClasses);
+    return sectionBuilder.build();
+  }
+
+  private String getStringCellValue(int column) {
+    Object value = rowCells.get(column);
+    if (value == null) {
+      throw new IllegalStateException("Missing cell at column " + column + " of row " + currentRow);
+    }
+    if (value instanceof CellType type) {
+      throw new IllegalStateException("Cannot get a STRING value from a " + type + " cell");
+    }
+    return (String) value;
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+
+/**
+ * Writes CSV (RFC 4180) with the same layout as the spreadsheet exports and the CSV import: the
+ * section name followed by (class name, class code) pairs, padded to the widest section.
+ */
+public class CsvSectionWriter extends TextSectionWriter {
+
+  private static final char DELIMITER = ',';
+  private static final char QUOTE = '"';
+  private static final String LINE_END = "\r\n";
+
+  private int maxClassCount;
+
+  @Override
+  public void beginPart(OutputStream out, int maxClassCount) throws IOException {
+    super.beginPart(out, maxClassCount);
+    this.maxClassCount = maxClassCount;
+  }
+
+  @Override
+  protected void writeHeader() throws IOException {
+    writer.write("Section name");
+    for (int i = 0; i < maxClassCount; i++) {
+      writer.write(",Class name,Class code");
+    }
+    writer.write(LINE_END);
+  }
+
+  /**
+   * Writes a row padded to the header. A section that gained classes after the header was written
+   * fails the export, as its row would not fit the header.
+   */
+  @Override
+  public void writeSection(SectionResponse section) throws IOException {
+    List<GeologicalClassRequest> geologicalClasses = section.geologicalClasses();
+    if (geologicalClasses.size() > maxClassCount) {
+      throw new IOException(
+          "Section "
+              + section.id()
+              + " has "
+              + geologicalClasses.size()
+              + " geological classes, more than the "
+              + maxClassCount
+              + " in the header; it changed during the export");
+    }
+
+    writeField(section.name());
+    for (int i = 0; i < maxClassCount; i++) {
+      GeologicalClassRequest geologicalClass =
+          i < geologicalClasses.size() ? geologicalClasses.get(i) : null;
+      writer.write(DELIMITER);
+      writeField(geologicalClass != null ? geologicalClass.name() : null);
+      writer.write(DELIMITER);
+      writeField(geologicalClass != null ? geologicalClass.code() : null);
+    }
+    writer.write(LINE_END);
+  }
+
+  private void writeField(String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if (!needsQuoting(value)) {
+      writer.write(value);
+      return;
+    }
+
+    writer.write(QUOTE);
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) == QUOTE) {
+        writer.write(value, start, i + 1 - start);
+        writer.write(QUOTE);
+        start = i + 1;
+      }
+    }
+    writer.write(value, start, value.length() - start);
+    writer.write(QUOTE);
+  }
+
+  private static boolean needsQuoting(String value) {
+    if (value.isEmpty()) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == DELIMITER || c == QUOTE || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
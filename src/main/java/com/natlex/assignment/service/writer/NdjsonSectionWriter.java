@@ -0,0 +1,70 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+
+/** Writes newline-delimited JSON: one object per section, shaped like the section API response. */
+public class NdjsonSectionWriter extends TextSectionWriter {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  @Override
+  public void writeSection(SectionResponse section) throws IOException {
+    writer.write("{\"id\":");
+    writer.write(section.id() != null ? section.id().toString() : "null");
+    writer.write(",\"name\":");
+    writeString(section.name());
+    writer.write(",\"geologicalClasses\":[");
+
+    List<GeologicalClassRequest> geologicalClasses = section.geologicalClasses();
+    for (int i = 0; i < geologicalClasses.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writer.write("{\"name\":");
+      writeString(geologicalClasses.get(i).name());
+      writer.write(",\"code\":");
+      writeString(geologicalClasses.get(i).code());
+      writer.write('}');
+    }
+    writer.write("]}\n");
+  }
+
+  private void writeString(String value) throws IOException {
+    if (value == null) {
+      writer.write("null");
+      return;
+    }
+
+    writer.write('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\' || c < 0x20) {
+        writer.write(value, start, i - start);
+        writeEscaped(c);
+        start = i + 1;
+      }
+    }
+    writer.write(value, start, value.length() - start);
+    writer.write('"');
+  }
+
+  private void writeEscaped(char c) throws IOException {
+    switch (c) {
+      case '"' -> writer.write("\\\"");
+      case '\\' -> writer.write("\\\\");
+      case '\n' -> writer.write("\\n");
+      case '\r' -> writer.write("\\r");
+      case '\t' -> writer.write("\\t");
+      default -> {
+        writer.write("\\u00");
+        writer.write(HEX[c >> 4]);
+        writer.write(HEX[c & 0xF]);
+      }
+    }
+  }
+}
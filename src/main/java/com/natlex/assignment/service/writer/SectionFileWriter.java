@@ -0,0 +1,34 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.model.ExportFormat;
+
+/** Writes sections to an export file one at a time, in the order they are given. */
+public interface SectionFileWriter extends Closeable {
+
+  /**
+   * Starts writing to {@code out}; {@code maxClassCount} is the largest class count of any section.
+   * The writer does not close {@code out}.
+   */
+  void begin(OutputStream out, int maxClassCount) throws IOException;
+
+  void writeSection(SectionResponse section) throws IOException;
+
+  /** Writes whatever is still buffered and flushes the output. */
+  void finish() throws IOException;
+
+  static SectionFileWriter of(ExportFormat format, int rowWindow) {
+    return switch (format) {
+      case XLS -> new WorkbookSectionWriter(new HSSFWorkbook());
+      case XLSX -> new XlsxSectionWriter(rowWindow);
+      case CSV -> new CsvSectionWriter();
+      case NDJSON -> new NdjsonSectionWriter();
+    };
+  }
+}
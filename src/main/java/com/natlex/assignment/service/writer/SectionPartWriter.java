@@ -0,0 +1,28 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.natlex.assignment.model.ExportFormat;
+
+/**
+ * Writes an export in parts that are concatenated afterwards. Only formats whose outputs can be
+ * concatenated have one, see {@link ExportFormat#isSplittable()}.
+ */
+public interface SectionPartWriter extends SectionFileWriter {
+
+  /**
+   * Starts writing a part that is appended to the output of another writer of the same format, so
+   * nothing but sections is written.
+   */
+  void beginPart(OutputStream out, int maxClassCount) throws IOException;
+
+  static SectionPartWriter of(ExportFormat format) {
+    return switch (format) {
+      case CSV -> new CsvSectionWriter();
+      case NDJSON -> new NdjsonSectionWriter();
+      case XLS, XLSX ->
+          throw new IllegalArgumentException(format + " exports cannot be written in parts");
+    };
+  }
+}
@@ -0,0 +1,43 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base for text exports that are encoded as UTF-8 straight into a buffered writer, so each row is
+ * written to the output as soon as it is read. Values are escaped one character at a time instead
+ * of building intermediate strings.
+ */
+public abstract class TextSectionWriter implements SectionPartWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  protected Writer writer;
+
+  @Override
+  public void begin(OutputStream out, int maxClassCount) throws IOException {
+    beginPart(out, maxClassCount);
+    writeHeader();
+  }
+
+  @Override
+  public void beginPart(OutputStream out, int maxClassCount) throws IOException {
+    writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /** Writes what precedes the first section; parts leave it out. */
+  protected void writeHeader() throws IOException {}
+
+  @Override
+  public void finish() throws IOException {
+    writer.flush();
+  }
+
+  /** Leaves the output stream open; it belongs to the caller. */
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,63 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+
+/**
+ * Writes sections to the "Sections" sheet of a workbook: a header row of "Section name" followed
+ * by a "Class name"/"Class code" pair per class, then one row per section.
+ */
+public class WorkbookSectionWriter implements SectionFileWriter {
+
+  protected final Workbook workbook;
+  private OutputStream out;
+  private Sheet sheet;
+  private int nextRow;
+
+  public WorkbookSectionWriter(Workbook workbook) {
+    this.workbook = workbook;
+  }
+
+  @Override
+  public void begin(OutputStream out, int maxClassCount) {
+    this.out = out;
+    sheet = workbook.createSheet("Sections");
+
+    Row headerRow = sheet.createRow(nextRow++);
+    headerRow.createCell(0).setCellValue("Section name");
+    for (int i = 0; i < maxClassCount; i++) {
+      headerRow.createCell(i * 2 + 1).setCellValue("Class name");
+      headerRow.createCell(i * 2 + 2).setCellValue("Class code");
+    }
+  }
+
+  @Override
+  public void writeSection(SectionResponse section) throws IOException {
+    Row row = sheet.createRow(nextRow++);
+    row.createCell(0).setCellValue(section.name());
+
+    for (int j = 0; j < section.geologicalClasses().size(); j++) {
+      GeologicalClassRequest geologicalClass = section.geologicalClasses().get(j);
+      row.createCell(j * 2 + 1).setCellValue(geologicalClass.name());
+      row.createCell(j * 2 + 2).setCellValue(geologicalClass.code());
+    }
+  }
+
+  @Override
+  public void finish() throws IOException {
+    workbook.write(out);
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    workbook.close();
+  }
+}
@@ -0,0 +1,32 @@
+package com.natlex.assignment.service.writer;
+
+import java.io.IOException;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes {@code .xlsx} files with a streaming workbook that keeps only the last {@code rowWindow}
+ * rows in memory and flushes older rows to a temporary file, so heap use does not grow with the
+ * number of sections.
+ */
+public class XlsxSectionWriter extends WorkbookSectionWriter {
+
+  public XlsxSectionWriter(int rowWindow) {
+    super(newWorkbook(rowWindow));
+  }
+
+  private static SXSSFWorkbook newWorkbook(int rowWindow) {
+    SXSSFWorkbook workbook = new SXSSFWorkbook(Math.max(rowWindow, 1));
+    workbook.setCompressTempFiles(true);
+    return workbook;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      ((SXSSFWorkbook) workbook).dispose();
+    } finally {
+      super.close();
+    }
+  }
+}
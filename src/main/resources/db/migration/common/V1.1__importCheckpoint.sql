@@ -0,0 +1,6 @@
+alter table job add column file_format varchar(255);
+alter table job add column checkpoint_row integer;
+
+alter table section add column row_index integer;
+
+create index idx_section_job_id on section(job_id);
@@ -0,0 +1,4 @@
+alter table job add column rows_processed bigint;
+alter table job add column total_rows bigint;
+alter table job add column bytes_processed bigint;
+alter table job add column elapsed_millis bigint;
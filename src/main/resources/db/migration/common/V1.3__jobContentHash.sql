@@ -0,0 +1,3 @@
+alter table job add column content_hash varchar(64);
+
+create index idx_job_content_hash on job(content_hash);
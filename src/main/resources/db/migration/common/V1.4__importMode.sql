@@ -0,0 +1,3 @@
+alter table job add column import_mode varchar(255);
+
+create index idx_section_name on section(name);
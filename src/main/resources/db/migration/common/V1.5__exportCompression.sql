@@ -0,0 +1 @@
+alter table job add column uncompressed_bytes bigint;
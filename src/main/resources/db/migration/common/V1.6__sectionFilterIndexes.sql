@@ -0,0 +1 @@
+create index idx_geological_class_code on geological_class(code, section_id);
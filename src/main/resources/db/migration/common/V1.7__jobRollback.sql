@@ -0,0 +1 @@
+alter table job add column rollback_requested boolean;
@@ -0,0 +1,3 @@
+alter table job add column dedup_key varchar(255);
+
+create unique index uk_job_dedup_key on job(dedup_key);
@@ -0,0 +1 @@
+drop index idx_job_content_hash;
@@ -2,20 +2,34 @@ package com.natlex.assignment.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -25,19 +39,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.natlex.assignment.api.controller.FileExportController;
 import com.natlex.assignment.api.response.JobStateResponse;
 import com.natlex.assignment.config.SecurityConfig;
+import com.natlex.assignment.exception.ArtifactExpiredException;
 import com.natlex.assignment.exception.ExportInProgressException;
 import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.exception.JobNotCancellableException;
+import com.natlex.assignment.model.ExportFormat;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobState;
 import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
 import com.natlex.assignment.service.ExportService;
 import com.natlex.assignment.service.FileServiceCallback;
+import com.natlex.assignment.service.JobEventPublisher;
 import com.natlex.assignment.service.JobService;
 
 @WebMvcTest(FileExportController.class)
@@ -52,6 +74,8 @@ public class FileExportControllerTest {
 
   @MockBean private FileServiceCallback fileServiceCallback;
 
+  @MockBean private JobEventPublisher jobEventPublisher;
+
   @Mock CompletableFuture<String> completableFuture;
 
   private final String url = "/api/v1/export";
@@ -61,8 +85,10 @@ public class FileExportControllerTest {
 
     var job = Job.builder().id("123").filePath("somepath").build();
 
-    given(jobService.saveNewFileJob(any(JobType.class))).willReturn(job);
-    given(exportService.exportFile(anyString(), anyString()))
+    given(jobService.saveNewExportJob(any(ExportFormat.class), anyBoolean())).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
         .willReturn(CompletableFuture.completedFuture("123"));
 
     mockMvc
@@ -71,6 +97,241 @@ public class FileExportControllerTest {
         .andExpect(jsonPath("$.id").exists());
   }
 
+  @Test
+  void exportFileWhenQueueIsFull_shouldDiscardJobAndReturn429() throws Exception {
+
+    var job = Job.builder().id("123").filePath("somepath").build();
+
+    given(jobService.saveNewExportJob(any(ExportFormat.class), anyBoolean())).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
+        .willThrow(new TaskRejectedException("Executor is full"));
+
+    mockMvc
+        .perform(get(url).with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+    verify(jobService, times(1)).discardJob(job);
+  }
+
+  @Test
+  void exportFileAsXlsx_shouldPassFormatToExport() throws Exception {
+
+    var job = Job.builder().id("123").filePath("somepath").build();
+
+    given(jobService.saveNewExportJob(ExportFormat.XLSX, false)).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
+        .willReturn(CompletableFuture.completedFuture("123"));
+
+    mockMvc
+        .perform(get(url).param("format", "XLSX").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(job.getId()));
+
+    verify(exportService, times(1))
+        .exportFile("123", "somepath", ExportFormat.XLSX, SectionFilter.NONE);
+  }
+
+  @Test
+  void exportFileCompressed_shouldCreateGzipJobForCompressibleFormats() throws Exception {
+
+    var job = Job.builder().id("123").filePath("somepath.csv.gz").build();
+    given(jobService.saveNewExportJob(any(ExportFormat.class), anyBoolean())).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
+        .willReturn(CompletableFuture.completedFuture("123"));
+
+    mockMvc
+        .perform(
+            get(url)
+                .param("format", "CSV")
+                .param("compress", "true")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            get(url)
+                .param("format", "XLSX")
+                .param("compress", "true")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk());
+
+    verify(jobService, times(1)).saveNewExportJob(ExportFormat.CSV, true);
+    verify(jobService, times(1)).saveNewExportJob(ExportFormat.XLSX, false);
+  }
+
+  @Test
+  void exportFileWithFilters_shouldPassFilterAndSkipReuse() throws Exception {
+
+    var job = Job.builder().id("123").filePath("somepath").build();
+    given(jobService.saveNewExportJob(any(ExportFormat.class), anyBoolean())).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
+        .willReturn(CompletableFuture.completedFuture("123"));
+
+    mockMvc
+        .perform(
+            get(url)
+                .param("codes", "GC11", "GC12")
+                .param("jobId", "job-1")
+                .param("minId", "10")
+                .param("maxId", "20")
+                .param("namePrefix", "Sec")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk());
+
+    var filter = new SectionFilter(List.of("GC11", "GC12"), "job-1", 10L, 20L, "Sec");
+    verify(exportService, times(1)).exportFile("123", "somepath", ExportFormat.XLS, filter);
+    verify(exportService, never()).findReusableExport(any(ExportFormat.class), anyBoolean());
+  }
+
+  @Test
+  void exportFileWithUnchangedDataset_shouldReturnCompletedJob() throws Exception {
+
+    var job = Job.builder().id("123").jobState(JobState.DONE).build();
+    given(exportService.findReusableExport(ExportFormat.CSV, false)).willReturn(Optional.of(job));
+
+    mockMvc
+        .perform(get(url).param("format", "CSV").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(job.getId()));
+
+    verify(jobService, never()).saveNewExportJob(any(ExportFormat.class), anyBoolean());
+    verify(exportService, never())
+        .exportFile(anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class));
+  }
+
+  @Test
+  void streamExport_shouldWriteSectionsToResponseBody() throws Exception {
+    var body = new byte[] {1, 2, 3};
+    doAnswer(
+            invocation -> {
+              invocation.<OutputStream>getArgument(2).write(body);
+              return null;
+            })
+        .when(exportService)
+        .streamExport(any(ExportFormat.class), any(SectionFilter.class), any(OutputStream.class));
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                get(url + "/stream")
+                    .param("format", "XLSX")
+                    .with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sections.xlsx"))
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ExportFormat.XLSX.getContentType()))
+        .andExpect(content().bytes(body));
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.XLSX), any(SectionFilter.class), any(OutputStream.class));
+    verify(jobService, never()).saveNewExportJob(any(ExportFormat.class), anyBoolean());
+  }
+
+  @Test
+  void streamExport_shouldNegotiateFormatFromAcceptHeader() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(
+                get(url + "/stream")
+                    .header(HttpHeaders.ACCEPT, "text/csv;q=0.5, application/x-ndjson")
+                    .with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            header()
+                .string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sections.ndjson"));
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.NDJSON), any(SectionFilter.class), any(OutputStream.class));
+  }
+
+  @Test
+  void streamExport_shouldPreferAcceptedFormatWithHigherQuality() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(
+                get(url + "/stream")
+                    .header(HttpHeaders.ACCEPT, "text/csv;q=0.1, application/x-ndjson;q=0.9")
+                    .with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.NDJSON), any(SectionFilter.class), any(OutputStream.class));
+  }
+
+  @Test
+  void streamExport_shouldDefaultToCsvWhenAcceptHeaderIsMalformed() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(
+                get(url + "/stream")
+                    .header(HttpHeaders.ACCEPT, "ndjson")
+                    .with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.CSV), any(SectionFilter.class), any(OutputStream.class));
+  }
+
+  @Test
+  void streamExport_shouldDefaultToCsv() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(get(url + "/stream").with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sections.csv"));
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.CSV), any(SectionFilter.class), any(OutputStream.class));
+  }
+
+  @Test
+  void streamExport_shouldPreferFormatParameterOverAcceptHeader() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(
+                get(url + "/stream")
+                    .param("format", "CSV")
+                    .header(HttpHeaders.ACCEPT, "application/x-ndjson")
+                    .with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+    verify(exportService, times(1))
+        .streamExport(eq(ExportFormat.CSV), any(SectionFilter.class), any(OutputStream.class));
+  }
+
   @Test
   void exportFileWithoutAuth_shouldReturn401() throws Exception {
     mockMvc.perform(get(url)).andExpect(status().is(401));
@@ -121,6 +382,129 @@ public class FileExportControllerTest {
         .andExpect(content().bytes(fileContentBytes));
   }
 
+  @Test
+  void getExportedXlsxFile_shouldUseXlsxNameAndContentType() throws Exception {
+    var fileContentBytes = new byte[] {1, 2, 3};
+    var exportedFile = File.createTempFile("sections", ".xlsx");
+    Files.write(exportedFile.toPath(), fileContentBytes);
+
+    given(exportService.getExportedFile(anyString())).willReturn(exportedFile);
+
+    mockMvc
+        .perform(get(url + "/123/file").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=123.xlsx"))
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ExportFormat.XLSX.getContentType()))
+        .andExpect(content().bytes(fileContentBytes));
+  }
+
+  @Test
+  void getExportedFileWithRange_shouldReturnPartialContent() throws Exception {
+    var exportedFile = exportedFile(new byte[] {1, 2, 3, 4, 5});
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.RANGE, "bytes=1-3")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/5"))
+        .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 3))
+        .andExpect(content().bytes(new byte[] {2, 3, 4}));
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.RANGE, "bytes=-2")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 3-4/5"))
+        .andExpect(content().bytes(new byte[] {4, 5}));
+
+    exportedFile.delete();
+  }
+
+  @Test
+  void getExportedFileWithUnsatisfiableRange_shouldReturn416() throws Exception {
+    var exportedFile = exportedFile(new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.RANGE, "bytes=10-")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */3"));
+
+    exportedFile.delete();
+  }
+
+  @Test
+  void getExportedFileWithMatchingETag_shouldReturn304() throws Exception {
+    var exportedFile = exportedFile(new byte[] {1, 2, 3});
+
+    String eTag =
+        mockMvc
+            .perform(get(url + "/123/file").with(httpBasic("admin", "adminpassword")))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isNotModified())
+        .andExpect(content().bytes(new byte[0]));
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.RANGE, "bytes=1-")
+                .header(HttpHeaders.IF_RANGE, "\"stale\"")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes(new byte[] {1, 2, 3}));
+
+    exportedFile.delete();
+  }
+
+  @Test
+  void getGzippedExportedFile_shouldSendGzipToClientsThatAcceptIt() throws Exception {
+    var csv = "Section name\r\nSection1\r\n".getBytes(StandardCharsets.UTF_8);
+    var gzipped = gzip(csv);
+    var exportedFile = File.createTempFile("sections", ".csv.gz");
+    Files.write(exportedFile.toPath(), gzipped);
+    given(exportService.getExportedFile(anyString())).willReturn(exportedFile);
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=123.csv"))
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+        .andExpect(content().bytes(gzipped));
+
+    mockMvc
+        .perform(
+            get(url + "/123/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+                .with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=123.csv"))
+        .andExpect(content().bytes(csv));
+
+    exportedFile.delete();
+  }
+
   @Test
   void getExportedFileWithNonExistingJobId_shouldReturn404() throws Exception {
     var errorMessage = "Job not found";
@@ -145,6 +529,65 @@ public class FileExportControllerTest {
         .andExpect(jsonPath("$.detail").value(errorMessage));
   }
 
+  @Test
+  void getExpiredExportedFile_shouldReturn410() throws Exception {
+    var errorMessage = "Export file expired";
+    given(exportService.getExportedFile(anyString()))
+        .willThrow(new ArtifactExpiredException(errorMessage));
+
+    mockMvc
+        .perform(get(url + "/123/file").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isGone())
+        .andExpect(jsonPath("$.detail").value(errorMessage));
+  }
+
+  @Test
+  void cancelExportJob_shouldReturnAccepted() throws Exception {
+    var response = JobStateResponse.builder().state(JobState.CANCELLED).build();
+    given(jobService.getJobState("123", JobType.EXPORT)).willReturn(response);
+
+    mockMvc
+        .perform(delete(url + "/123").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.state").value("CANCELLED"));
+
+    verify(exportService, times(1)).cancelExport("123");
+    verify(jobEventPublisher, times(1)).publish("123");
+  }
+
+  @Test
+  void cancelExportJobThatHasEnded_shouldReturn409() throws Exception {
+    var errorMessage = "Job has already ended";
+    doThrow(new JobNotCancellableException(errorMessage)).when(exportService).cancelExport("123");
+
+    mockMvc
+        .perform(delete(url + "/123").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.detail").value(errorMessage));
+  }
+
+  @Test
+  void getExportJobEvents_shouldStreamStateEvents() throws Exception {
+    var emitter = new SseEmitter();
+    given(jobEventPublisher.subscribe("123", JobType.EXPORT)).willReturn(emitter);
+
+    MvcResult result =
+        mockMvc
+            .perform(get(url + "/123/events").with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    emitter.send(
+        SseEmitter.event()
+            .name("state")
+            .data(JobStateResponse.builder().state(JobState.DONE).build()));
+    emitter.complete();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string("event:state\ndata:{\"state\":\"DONE\"}\n\n"));
+  }
+
   @Test
   void fileExportServiceCallback_shouldGetJobExceptions() throws Exception {
 
@@ -152,8 +595,11 @@ public class FileExportControllerTest {
     var jobException = new JobException(job.getId(), "error occured");
     completableFuture = CompletableFuture.failedFuture(jobException);
 
-    given(exportService.exportFile(anyString(), anyString())).willReturn(completableFuture);
-    given(jobService.saveNewFileJob(any(JobType.class))).willReturn(job);
+    given(
+            exportService.exportFile(
+                anyString(), anyString(), any(ExportFormat.class), any(SectionFilter.class)))
+        .willReturn(completableFuture);
+    given(jobService.saveNewExportJob(any(ExportFormat.class), anyBoolean())).willReturn(job);
 
     mockMvc
         .perform(get(url).with(httpBasic("admin", "adminpassword")))
@@ -161,6 +607,22 @@ public class FileExportControllerTest {
         .andExpect(jsonPath("$.id").value(job.getId()));
 
     assertThat(completableFuture.isCompletedExceptionally()).isTrue();
-    verify(exportService, times(1)).exportFile(job.getId(), job.getFilePath());
+    verify(exportService, times(1))
+        .exportFile(job.getId(), job.getFilePath(), ExportFormat.XLS, SectionFilter.NONE);
+  }
+
+  private File exportedFile(byte[] content) throws Exception {
+    var exportedFile = File.createTempFile("sections", ".xls");
+    Files.write(exportedFile.toPath(), content);
+    given(exportService.getExportedFile(anyString())).willReturn(exportedFile);
+    return exportedFile;
+  }
+
+  private static byte[] gzip(byte[] content) throws Exception {
+    var out = new ByteArrayOutputStream();
+    try (var gzipOut = new GZIPOutputStream(out)) {
+      gzipOut.write(content);
+    }
+    return out.toByteArray();
   }
 }
@@ -2,17 +2,25 @@ package com.natlex.assignment.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.File;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -23,21 +31,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.natlex.assignment.api.controller.FileImportController;
+import com.natlex.assignment.api.response.ImportValidationResponse;
 import com.natlex.assignment.api.response.JobStateResponse;
+import com.natlex.assignment.api.response.RowErrorResponse;
 import com.natlex.assignment.config.SecurityConfig;
 import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.exception.JobNotCancellableException;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
 import com.natlex.assignment.model.Job;
 import com.natlex.assignment.model.JobState;
 import com.natlex.assignment.model.JobType;
 import com.natlex.assignment.service.FileServiceCallback;
 import com.natlex.assignment.service.FileStorageService;
 import com.natlex.assignment.service.ImportService;
+import com.natlex.assignment.service.ImportValidationService;
+import com.natlex.assignment.service.JobEventPublisher;
 import com.natlex.assignment.service.JobService;
 
 @WebMvcTest(FileImportController.class)
@@ -52,8 +73,12 @@ public class FileImportControllerTest {
 
   @MockBean private FileStorageService fileStorageService;
 
+  @MockBean private ImportValidationService importValidationService;
+
   @MockBean private FileServiceCallback fileImportServiceCallback;
 
+  @MockBean private JobEventPublisher jobEventPublisher;
+
   @Mock CompletableFuture<String> completableFuture;
 
   private final String url = "/api/v1/import";
@@ -63,10 +88,15 @@ public class FileImportControllerTest {
 
     var job = Job.builder().id("123").build();
 
-    given(fileStorageService.saveFile(any(MultipartFile.class)))
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
         .willReturn(File.createTempFile("uploaded", ".tmp"));
-    given(jobService.saveNewFileJob(any(JobType.class))).willReturn(job);
-    given(importService.importFile(anyString(), anyString()))
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean()))
+        .willReturn(job);
+    given(
+            importService.importFile(
+                anyString(), anyString(), any(FileFormat.class), any(ImportMode.class)))
         .willReturn(CompletableFuture.completedFuture("123"));
 
     MockMultipartFile mockFile =
@@ -81,10 +111,195 @@ public class FileImportControllerTest {
         .andExpect(status().isCreated())
         .andExpect(jsonPath("$.id").value(job.getId()));
 
-    verify(importService, times(1)).importFile(anyString(), anyString());
+    verify(importService, times(1))
+        .importFile(anyString(), anyString(), any(FileFormat.class), any(ImportMode.class));
     verify(fileImportServiceCallback, times(1)).accept("123", null);
   }
 
+  @Test
+  void importFileWhenQueueIsFull_shouldDiscardJobAndReturn429() throws Exception {
+
+    var job = Job.builder().id("123").build();
+
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(File.createTempFile("uploaded", ".tmp"));
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean()))
+        .willReturn(job);
+    given(
+            importService.importFile(
+                anyString(), anyString(), any(FileFormat.class), any(ImportMode.class)))
+        .willThrow(new TaskRejectedException("Executor is full"));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+    verify(jobService, times(1)).discardJob(job);
+  }
+
+  @Test
+  void importDuplicateFile_shouldReturnExistingJobId() throws Exception {
+
+    var existingJob = Job.builder().id("123").build();
+    File uploadedFile = File.createTempFile("uploaded", ".tmp");
+
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(uploadedFile);
+    given(fileStorageService.contentHash(uploadedFile)).willReturn("hash");
+    given(jobService.findReusableImportJob("hash", FileFormat.XLS, ImportMode.APPEND))
+        .willReturn(Optional.of(existingJob));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(existingJob.getId()));
+
+    verify(fileStorageService, times(1)).deleteFile(uploadedFile);
+    verify(jobService, never())
+        .saveNewImportJob(
+            anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean());
+    verify(importService, never())
+        .importFile(anyString(), anyString(), any(FileFormat.class), any(ImportMode.class));
+  }
+
+  @Test
+  void importConcurrentDuplicateFile_shouldReturnJobOfFirstUpload() throws Exception {
+
+    var existingJob = Job.builder().id("123").build();
+    File uploadedFile = File.createTempFile("uploaded", ".tmp");
+
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(uploadedFile);
+    given(fileStorageService.contentHash(uploadedFile)).willReturn("hash");
+    given(jobService.findReusableImportJob("hash", FileFormat.XLS, ImportMode.APPEND))
+        .willReturn(Optional.empty(), Optional.of(existingJob));
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), any(ImportMode.class), eq("hash"), eq(true)))
+        .willThrow(new DataIntegrityViolationException("uk_job_dedup_key"));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(existingJob.getId()));
+
+    verify(fileStorageService, times(1)).deleteFile(uploadedFile);
+    verify(importService, never())
+        .importFile(anyString(), anyString(), any(FileFormat.class), any(ImportMode.class));
+  }
+
+  @Test
+  void importDuplicateFileWithForce_shouldStartNewJob() throws Exception {
+
+    var newJob = Job.builder().id("456").build();
+    File uploadedFile = File.createTempFile("uploaded", ".tmp");
+
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(uploadedFile);
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), any(ImportMode.class), isNull(), eq(false)))
+        .willReturn(newJob);
+    given(
+            importService.importFile(
+                anyString(), anyString(), any(FileFormat.class), any(ImportMode.class)))
+        .willReturn(CompletableFuture.completedFuture("456"));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .param("force", "true")
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(newJob.getId()));
+
+    verify(fileStorageService, never()).contentHash(any(File.class));
+    verify(jobService, never())
+        .findReusableImportJob(any(), any(FileFormat.class), any(ImportMode.class));
+    verify(importService, times(1))
+        .importFile("456", uploadedFile.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
+  }
+
+  @Test
+  void importFileInMergeMode_shouldPassModeToImport() throws Exception {
+
+    var job = Job.builder().id("123").build();
+    File uploadedFile = File.createTempFile("uploaded", ".tmp");
+
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(uploadedFile);
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), eq(ImportMode.MERGE), any(), anyBoolean()))
+        .willReturn(job);
+    given(
+            importService.importFile(
+                anyString(), anyString(), any(FileFormat.class), any(ImportMode.class)))
+        .willReturn(CompletableFuture.completedFuture("123"));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .param("mode", "MERGE")
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(job.getId()));
+
+    verify(importService, times(1))
+        .importFile("123", uploadedFile.getAbsolutePath(), FileFormat.XLS, ImportMode.MERGE);
+  }
+
+  @Test
+  void importFileWithInvalidMode_shouldReturn400() throws Exception {
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .param("mode", "REPLACE")
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.detail").value("Invalid value for parameter: mode"));
+  }
+
   @Test
   void importFileWithoutAuth_shouldReturn401() throws Exception {
     mockMvc.perform(post(url)).andExpect(status().is(401));
@@ -95,6 +310,67 @@ public class FileImportControllerTest {
     mockMvc.perform(post(url).with(httpBasic("user", "password"))).andExpect(status().is(403));
   }
 
+  @Test
+  void importTooLargeFile_shouldReturn413() throws Exception {
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willThrow(new MaxUploadSizeExceededException(3));
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url)
+                .file(mockFile)
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isPayloadTooLarge());
+    verify(jobService, never())
+        .saveNewImportJob(
+            anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean());
+  }
+
+  @Test
+  void validateFile_shouldReturnValidationReport() throws Exception {
+
+    File uploadedFile = File.createTempFile("uploaded", ".tmp");
+    var report =
+        ImportValidationResponse.builder()
+            .valid(false)
+            .rowsChecked(2)
+            .errorCount(1)
+            .errors(
+                List.of(
+                    RowErrorResponse.builder()
+                        .row(3)
+                        .messages(List.of("name: Name is mandatory"))
+                        .build()))
+            .build();
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong()))
+        .willReturn(uploadedFile);
+    given(importValidationService.validate(uploadedFile, FileFormat.CSV)).willReturn(report);
+
+    MockMultipartFile mockFile =
+        new MockMultipartFile("file", "test.csv", "text/csv", new byte[] {1, 2, 3});
+
+    mockMvc
+        .perform(
+            multipart(url + "/validate")
+                .file(mockFile)
+                .with(httpBasic("admin", "adminpassword"))
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.valid").value(false))
+        .andExpect(jsonPath("$.errorCount").value(1))
+        .andExpect(jsonPath("$.errors[0].row").value(3))
+        .andExpect(jsonPath("$.errors[0].messages[0]").value("name: Name is mandatory"));
+
+    verify(fileStorageService, times(1)).deleteFile(uploadedFile);
+    verify(jobService, never())
+        .saveNewImportJob(
+            anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean());
+  }
+
   @Test
   void getImportJobState_shouldReturnJobStateResponse() throws Exception {
     var response = JobStateResponse.builder().state(JobState.DONE).build();
@@ -106,6 +382,28 @@ public class FileImportControllerTest {
         .andExpect(jsonPath("$.state").value(response.state().name()));
   }
 
+  @Test
+  void getImportJobState_shouldReturnProgress() throws Exception {
+    var response =
+        JobStateResponse.builder()
+            .state(JobState.IN_PROGRESS)
+            .rowsProcessed(1500L)
+            .bytesProcessed(65536L)
+            .elapsedMillis(3000L)
+            .rowsPerSecond(500.0)
+            .build();
+    given(jobService.getJobState(anyString(), any(JobType.class))).willReturn(response);
+
+    mockMvc
+        .perform(get(url + "/123").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state").value("IN_PROGRESS"))
+        .andExpect(jsonPath("$.rowsProcessed").value(1500))
+        .andExpect(jsonPath("$.bytesProcessed").value(65536))
+        .andExpect(jsonPath("$.rowsPerSecond").value(500.0))
+        .andExpect(jsonPath("$.totalRows").doesNotExist());
+  }
+
   @Test
   void getImportJobStateWithNonExistingJobId_shouldReturn404() throws Exception {
     var errorMessage = "Job not found";
@@ -118,6 +416,55 @@ public class FileImportControllerTest {
         .andExpect(jsonPath("$.detail").value(errorMessage));
   }
 
+  @Test
+  void cancelImportJob_shouldReturnAccepted() throws Exception {
+    var response = JobStateResponse.builder().state(JobState.CANCELLED).build();
+    given(jobService.getJobState("123", JobType.IMPORT)).willReturn(response);
+
+    mockMvc
+        .perform(delete(url + "/123?rollback=true").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.state").value("CANCELLED"));
+
+    verify(importService, times(1)).cancelImport("123", true);
+    verify(jobEventPublisher, times(1)).publish("123");
+  }
+
+  @Test
+  void cancelImportJobThatHasEnded_shouldReturn409() throws Exception {
+    var errorMessage = "Job has already ended";
+    doThrow(new JobNotCancellableException(errorMessage))
+        .when(importService)
+        .cancelImport("123", true);
+
+    mockMvc
+        .perform(delete(url + "/123?rollback=true").with(httpBasic("admin", "adminpassword")))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.detail").value(errorMessage));
+  }
+
+  @Test
+  void getImportJobEvents_shouldStreamStateEvents() throws Exception {
+    var emitter = new SseEmitter();
+    given(jobEventPublisher.subscribe("123", JobType.IMPORT)).willReturn(emitter);
+
+    MvcResult result =
+        mockMvc
+            .perform(get(url + "/123/events").with(httpBasic("admin", "adminpassword")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    emitter.send(
+        SseEmitter.event()
+            .name("state")
+            .data(JobStateResponse.builder().state(JobState.DONE).build()));
+    emitter.complete();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string("event:state\ndata:{\"state\":\"DONE\"}\n\n"));
+  }
+
   @Test
   void fileImportServiceCallback_shouldGetJobExceptions() throws Exception {
 
@@ -126,9 +473,15 @@ public class FileImportControllerTest {
     completableFuture = CompletableFuture.failedFuture(jobException);
     File tempFile = File.createTempFile("uploaded", ".tmp");
 
-    given(importService.importFile(anyString(), anyString())).willReturn(completableFuture);
-    given(fileStorageService.saveFile(any(MultipartFile.class))).willReturn(tempFile);
-    given(jobService.saveNewFileJob(any(JobType.class))).willReturn(job);
+    given(
+            importService.importFile(
+                anyString(), anyString(), any(FileFormat.class), any(ImportMode.class)))
+        .willReturn(completableFuture);
+    given(fileStorageService.saveFile(any(MultipartFile.class), anyLong())).willReturn(tempFile);
+    given(
+            jobService.saveNewImportJob(
+                anyString(), any(FileFormat.class), any(ImportMode.class), any(), anyBoolean()))
+        .willReturn(job);
 
     MockMultipartFile mockFile =
         new MockMultipartFile("file", "test.xls", "application/vnd.ms-excel", new byte[] {1, 2, 3});
@@ -143,6 +496,7 @@ public class FileImportControllerTest {
         .andExpect(jsonPath("$.id").value(job.getId()));
 
     assertThat(completableFuture.isCompletedExceptionally()).isTrue();
-    verify(importService, times(1)).importFile(job.getId(), tempFile.getAbsolutePath());
+    verify(importService, times(1))
+        .importFile(job.getId(), tempFile.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
   }
 }
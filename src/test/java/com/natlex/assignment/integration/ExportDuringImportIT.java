@@ -0,0 +1,108 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.config.AsyncConfig;
+import com.natlex.assignment.model.ExportFormat;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.service.ExportService;
+import com.natlex.assignment.service.ImportChunk;
+import com.natlex.assignment.service.ImportPipeline;
+import com.natlex.assignment.service.JobService;
+import com.natlex.assignment.service.SectionService;
+
+/**
+ * Keeps the writers of as many imports as the import executor runs busy, and checks that a
+ * parallel export still completes.
+ */
+@SpringBootTest(properties = "export.parallel.workers=2")
+public class ExportDuringImportIT {
+
+  private static final int ROWS = 100;
+
+  @Autowired private ExportService exportService;
+
+  @Autowired private SectionService sectionService;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobRepository jobRepository;
+
+  @Autowired
+  @Qualifier(AsyncConfig.IMPORT_WRITER_EXECUTOR)
+  private AsyncTaskExecutor importWriterExecutor;
+
+  @Value("${import.executor.max-size:2}")
+  private int importMaxSize;
+
+  @Value("${import.pipeline.writers:2}")
+  private int importWriters;
+
+  @Test
+  void parallelExport_shouldCompleteWhileImportsHoldTheirWriters() throws Exception {
+
+    String importJobId = UUID.randomUUID().toString();
+    jobRepository.save(
+        Job.builder().id(importJobId).jobType(JobType.IMPORT).jobState(JobState.DONE).build());
+    List<SectionRequest> requests =
+        IntStream.range(0, ROWS)
+            .mapToObj(
+                i ->
+                    SectionRequest.builder()
+                        .name("Section " + i)
+                        .geologicalClasses(
+                            List.of(
+                                GeologicalClassRequest.builder()
+                                    .name("Class " + i)
+                                    .code("C" + i)
+                                    .build()))
+                        .build())
+            .toList();
+    sectionService.saveImportedSections(
+        new ImportChunk(0, IntStream.range(0, ROWS).boxed().toList(), requests),
+        importJobId,
+        ROWS - 1);
+    SectionFilter filter = SectionFilter.builder().jobId(importJobId).build();
+
+    // Running imports hold their writers, which wait for chunks, until the import ends.
+    List<ImportPipeline> imports = new ArrayList<>();
+    try {
+      for (int i = 0; i < importMaxSize; i++) {
+        imports.add(new ImportPipeline(importWriters, 1, importWriterExecutor, chunk -> {}));
+      }
+
+      Job job = jobService.saveNewExportJob(ExportFormat.CSV, false);
+      Path file = Path.of(job.getFilePath());
+      exportService
+          .exportFile(job.getId(), job.getFilePath(), ExportFormat.CSV, filter)
+          .get(30, TimeUnit.SECONDS);
+
+      assertEquals(ROWS + 1, Files.readString(file, StandardCharsets.UTF_8).lines().count());
+      Files.delete(file);
+    } finally {
+      imports.forEach(ImportPipeline::close);
+    }
+  }
+}
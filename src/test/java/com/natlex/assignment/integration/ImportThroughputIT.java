@@ -0,0 +1,125 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.mapper.SectionMapper;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.Section;
+import com.natlex.assignment.persistence.GeologicalClassRepository;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.persistence.SectionRepository;
+import com.natlex.assignment.service.ImportChunk;
+import com.natlex.assignment.service.SectionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares persisting an import one row per transaction through JPA with persisting it in chunks.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+public class ImportThroughputIT {
+
+  private static final int ROWS = 2_000;
+  private static final int CHUNK_SIZE = 500;
+
+  @Autowired private SectionService sectionService;
+
+  @Autowired private SectionRepository sectionRepository;
+
+  @Autowired private GeologicalClassRepository geologicalClassRepository;
+
+  @Autowired private JobRepository jobRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private String jobId;
+
+  private List<SectionRequest> requests;
+
+  @BeforeEach
+  void setUp() {
+    geologicalClassRepository.deleteAllInBatch();
+    sectionRepository.deleteAllInBatch();
+
+    jobId = UUID.randomUUID().toString();
+    jobRepository.save(
+        Job.builder().id(jobId).jobType(JobType.IMPORT).jobState(JobState.IN_PROGRESS).build());
+
+    requests = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      requests.add(
+          SectionRequest.builder()
+              .name("Section " + i)
+              .geologicalClasses(
+                  List.of(
+                      GeologicalClassRequest.builder().name("Class " + i).code("C" + i).build(),
+                      GeologicalClassRequest.builder().name("Class X").code("CX").build()))
+              .build());
+    }
+  }
+
+  @Test
+  void chunkedBatchPath_shouldPersistSameRowsAsPerRowJpaSaves() {
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    long perRowStart = System.nanoTime();
+    for (SectionRequest request : requests) {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            Section section = SectionMapper.toEntity(request);
+            section.setJobId(jobId);
+            sectionRepository.save(section);
+          });
+    }
+    long perRowNanos = System.nanoTime() - perRowStart;
+
+    assertEquals(ROWS, sectionRepository.count());
+    assertEquals(ROWS * 2L, geologicalClassRepository.count());
+
+    geologicalClassRepository.deleteAllInBatch();
+    sectionRepository.deleteAllInBatch();
+
+    long batchStart = System.nanoTime();
+    for (int i = 0; i < ROWS; i += CHUNK_SIZE) {
+      int end = Math.min(i + CHUNK_SIZE, ROWS);
+      List<Integer> rowIndexes = IntStream.range(i, end).boxed().toList();
+      sectionService.saveImportedSections(
+          new ImportChunk(i / CHUNK_SIZE, rowIndexes, requests.subList(i, end)), jobId, end - 1);
+    }
+    long batchNanos = System.nanoTime() - batchStart;
+
+    assertEquals(ROWS, sectionRepository.count());
+    assertEquals(ROWS * 2L, geologicalClassRepository.count());
+    assertEquals(ROWS - 1, jobRepository.findById(jobId).orElseThrow().getCheckpointRow());
+
+    log.info(
+        "Import persistence of {} rows: per-row JPA {} rows/s, chunked batch ({}) {} rows/s",
+        ROWS,
+        rowsPerSecond(perRowNanos),
+        CHUNK_SIZE,
+        rowsPerSecond(batchNanos));
+  }
+
+  private static long rowsPerSecond(long nanos) {
+    return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+  }
+}
@@ -0,0 +1,136 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.model.ExportFormat;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.service.ExportService;
+import com.natlex.assignment.service.ImportChunk;
+import com.natlex.assignment.service.JobService;
+import com.natlex.assignment.service.SectionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the same sections with 1, 2 and 4 parallel export workers, checks that every export
+ * matches the serial streaming export, and logs the throughput of each.
+ */
+@Slf4j
+@Tag("benchmark")
+public abstract class ParallelExportIT {
+
+  private static final int ROWS = 20_000;
+  private static final int CHUNK_SIZE = 500;
+
+  @Autowired private ExportService exportService;
+
+  @Autowired private SectionService sectionService;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobRepository jobRepository;
+
+  private SectionFilter filter;
+
+  protected abstract int workers();
+
+  @BeforeEach
+  void setUp() {
+    String jobId = UUID.randomUUID().toString();
+    jobRepository.save(
+        Job.builder().id(jobId).jobType(JobType.IMPORT).jobState(JobState.DONE).build());
+
+    List<SectionRequest> requests = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      requests.add(
+          SectionRequest.builder()
+              .name("Section " + i)
+              .geologicalClasses(
+                  List.of(
+                      GeologicalClassRequest.builder().name("Class " + i).code("C" + i).build(),
+                      GeologicalClassRequest.builder().name("Class X").code("CX").build()))
+              .build());
+    }
+    for (int i = 0; i < ROWS; i += CHUNK_SIZE) {
+      int end = Math.min(i + CHUNK_SIZE, ROWS);
+      List<Integer> rowIndexes = IntStream.range(i, end).boxed().toList();
+      sectionService.saveImportedSections(
+          new ImportChunk(i / CHUNK_SIZE, rowIndexes, requests.subList(i, end)), jobId, end - 1);
+    }
+
+    filter = SectionFilter.builder().jobId(jobId).build();
+  }
+
+  @Test
+  void parallelCsvExport_shouldMatchSerialExport() throws Exception {
+
+    ByteArrayOutputStream serial = new ByteArrayOutputStream();
+    exportService.streamExport(ExportFormat.CSV, filter, serial);
+    assertEquals(ROWS + 1, serial.toString(StandardCharsets.UTF_8).lines().count());
+
+    Job job = jobService.saveNewExportJob(ExportFormat.CSV, false);
+    Path file = Path.of(job.getFilePath());
+
+    long start = System.nanoTime();
+    exportService.exportFile(job.getId(), job.getFilePath(), ExportFormat.CSV, filter).get();
+    long nanos = System.nanoTime() - start;
+
+    String csv = Files.readString(file);
+    Files.delete(file);
+    assertEquals(serial.toString(StandardCharsets.UTF_8), csv);
+    log.info(
+        "CSV export of {} rows with {} worker(s) on {} cores: {} rows/s",
+        ROWS,
+        workers(),
+        Runtime.getRuntime().availableProcessors(),
+        ROWS * 1_000_000_000L / Math.max(nanos, 1));
+  }
+
+  @SpringBootTest(properties = "export.parallel.workers=1")
+  static class OneWorker extends ParallelExportIT {
+
+    @Override
+    protected int workers() {
+      return 1;
+    }
+  }
+
+  @SpringBootTest(properties = "export.parallel.workers=2")
+  static class TwoWorkers extends ParallelExportIT {
+
+    @Override
+    protected int workers() {
+      return 2;
+    }
+  }
+
+  @SpringBootTest(properties = "export.parallel.workers=4")
+  static class FourWorkers extends ParallelExportIT {
+
+    @Override
+    protected int workers() {
+      return 4;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.persistence.JobRepository;
+import com.natlex.assignment.service.ImportChunk;
+import com.natlex.assignment.service.SectionService;
+
+@SpringBootTest
+public class SectionMergeIT {
+
+  @Autowired private SectionService sectionService;
+
+  @Autowired private JobRepository jobRepository;
+
+  private String jobId;
+
+  private String prefix;
+
+  @BeforeEach
+  void setUp() {
+    jobId = UUID.randomUUID().toString();
+    prefix = jobId.substring(0, 8) + " ";
+    jobRepository.save(
+        Job.builder().id(jobId).jobType(JobType.IMPORT).jobState(JobState.IN_PROGRESS).build());
+  }
+
+  @Test
+  void mergeImportedSections_shouldUpdateMatchedAndInsertNewSections() {
+    sectionService.saveSection(section("A", "old", "OLD-A"));
+
+    sectionService.mergeImportedSections(
+        new ImportChunk(
+            0,
+            List.of(1, 2, 3),
+            List.of(section("A", "first", "A1"), section("B", "b", "B1"), section("A", "a", "A2"))),
+        jobId,
+        3);
+
+    List<SectionResponse> sectionsA = sectionsNamed("A");
+    assertEquals(1, sectionsA.size());
+    assertEquals(
+        List.of(GeologicalClassRequest.builder().name("a").code("A2").build()),
+        sectionsA.get(0).geologicalClasses());
+    assertEquals(1, sectionsNamed("B").size());
+    assertTrue(sectionService.getSectionsByGeologicalClassCode("OLD-A").isEmpty());
+    assertEquals(3, jobRepository.findById(jobId).orElseThrow().getCheckpointRow());
+  }
+
+  @Test
+  void mergeImportedSections_shouldNotGrowOnRepeatedImports() {
+    var chunk =
+        new ImportChunk(
+            0, List.of(1, 2), List.of(section("C", "c", "C1"), section("D", "d", "D1")));
+
+    sectionService.mergeImportedSections(chunk, jobId, 2);
+    long sectionCount = sectionService.getAllSections().size();
+    sectionService.mergeImportedSections(chunk, jobId, 2);
+
+    assertEquals(sectionCount, sectionService.getAllSections().size());
+    assertEquals(1, sectionsNamed("C").size());
+    assertEquals(1, sectionsNamed("C").get(0).geologicalClasses().size());
+  }
+
+  private SectionRequest section(String name, String className, String classCode) {
+    return SectionRequest.builder()
+        .name(prefix + name)
+        .geologicalClasses(
+            List.of(GeologicalClassRequest.builder().name(className).code(classCode).build()))
+        .build();
+  }
+
+  private List<SectionResponse> sectionsNamed(String name) {
+    return sectionService.getAllSections().stream()
+        .filter(section -> section.name().equals(prefix + name))
+        .toList();
+  }
+}
@@ -0,0 +1,122 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.model.SectionFilter;
+import com.natlex.assignment.service.SectionService;
+
+@SpringBootTest(properties = "sections.read.page-size=2")
+public class SectionReadIT {
+
+  @Autowired private SectionService sectionService;
+
+  @Test
+  void forEachSection_shouldReadAllPagesInIdOrderWithClasses() {
+    String prefix = UUID.randomUUID().toString().substring(0, 8) + " ";
+    List<Long> savedIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      savedIds.add(
+          sectionService
+              .saveSection(
+                  SectionRequest.builder()
+                      .name(prefix + i)
+                      .geologicalClasses(
+                          List.of(
+                              GeologicalClassRequest.builder().name("n" + i).code("a" + i).build(),
+                              GeologicalClassRequest.builder().name("m" + i).code("b" + i).build()))
+                      .build())
+              .id());
+    }
+
+    List<SectionResponse> read = new ArrayList<>();
+    sectionService.forEachSection(SectionFilter.NONE, read::add);
+
+    List<Long> readIds = read.stream().map(SectionResponse::id).toList();
+    assertEquals(readIds.stream().sorted().toList(), readIds);
+    assertEquals(readIds.size(), readIds.stream().distinct().count());
+    assertTrue(readIds.containsAll(savedIds));
+    assertEquals(sectionService.countSections(SectionFilter.NONE), read.size());
+
+    List<SectionResponse> ours =
+        read.stream().filter(section -> section.name().startsWith(prefix)).toList();
+    assertEquals(5, ours.size());
+    ours.forEach(section -> assertEquals(2, section.geologicalClasses().size()));
+  }
+
+  @Test
+  void forEachSection_shouldOnlyReadSectionsMatchingFilter() {
+    String prefix = UUID.randomUUID().toString().substring(0, 8) + "_%";
+    String code = UUID.randomUUID().toString();
+    Long first = saveSection(prefix + "1", code).id();
+    Long second = saveSection(prefix + "2", "other").id();
+    Long third = saveSection(prefix.replace("_%", "x%") + "3", code).id();
+
+    assertEquals(
+        List.of(first, second), readIds(SectionFilter.builder().namePrefix(prefix).build()));
+    assertEquals(
+        List.of(first, third), readIds(SectionFilter.builder().codes(List.of(code)).build()));
+    assertEquals(
+        List.of(third),
+        readIds(SectionFilter.builder().codes(List.of(code)).minId(second).build()));
+    assertEquals(
+        List.of(first), readIds(SectionFilter.builder().namePrefix(prefix).maxId(first).build()));
+    assertEquals(
+        2, sectionService.countSections(SectionFilter.builder().codes(List.of(code)).build()));
+    assertEquals(
+        1,
+        sectionService.getMaxGeologicalClassCount(
+            SectionFilter.builder().namePrefix(prefix).build()));
+  }
+
+  @Test
+  void splitByIdRange_shouldCoverMatchingSectionsWithConsecutiveRanges() {
+    String code = UUID.randomUUID().toString();
+    List<Long> savedIds = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      savedIds.add(saveSection("Section " + i, code).id());
+    }
+    SectionFilter filter = SectionFilter.builder().codes(List.of(code)).build();
+
+    List<SectionFilter> shards = sectionService.splitByIdRange(filter, 3);
+
+    assertTrue(shards.size() <= 3);
+    assertEquals(savedIds.get(0), shards.get(0).minId());
+    assertEquals(savedIds.get(6), shards.get(shards.size() - 1).maxId());
+    for (int i = 1; i < shards.size(); i++) {
+      assertEquals(shards.get(i - 1).maxId() + 1, shards.get(i).minId());
+    }
+    List<Long> readIds = new ArrayList<>();
+    shards.forEach(shard -> readIds.addAll(readIds(shard)));
+    assertEquals(savedIds, readIds);
+    assertEquals(
+        List.of(),
+        sectionService.splitByIdRange(
+            SectionFilter.builder().codes(List.of(UUID.randomUUID().toString())).build(), 3));
+  }
+
+  private SectionResponse saveSection(String name, String code) {
+    return sectionService.saveSection(
+        SectionRequest.builder()
+            .name(name)
+            .geologicalClasses(
+                List.of(GeologicalClassRequest.builder().name("name").code(code).build()))
+            .build());
+  }
+
+  private List<Long> readIds(SectionFilter filter) {
+    List<Long> ids = new ArrayList<>();
+    sectionService.forEachSection(filter, section -> ids.add(section.id()));
+    return ids;
+  }
+}
@@ -0,0 +1,158 @@
+package com.natlex.assignment.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.config.AsyncConfig;
+import com.natlex.assignment.service.SectionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs concurrent imports and section reads against the application with platform threads and
+ * with virtual threads, and logs the throughput and p99 latency of each mode.
+ */
+@Slf4j
+@Tag("benchmark")
+public abstract class ThreadingLoadIT {
+
+  private static final int CLIENTS = 16;
+  private static final int IMPORTS = 20;
+  private static final int READS = 400;
+
+  @Autowired private WebTestClient testClient;
+
+  @Autowired private SectionService sectionService;
+
+  @Autowired
+  @Qualifier(AsyncConfig.IMPORT_EXECUTOR)
+  private AsyncTaskExecutor importExecutor;
+
+  protected abstract boolean virtualThreads();
+
+  @Test
+  void concurrentImportsAndReads_shouldAllSucceed() throws Exception {
+
+    assertEquals(
+        virtualThreads(), importExecutor.submit(() -> Thread.currentThread().isVirtual()).get());
+
+    Long sectionId =
+        sectionService
+            .saveSection(
+                SectionRequest.builder()
+                    .name("Load test section")
+                    .geologicalClasses(
+                        List.of(GeologicalClassRequest.builder().name("n").code("c").build()))
+                    .build())
+            .id();
+    MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
+    bodyBuilder
+        .part("file", new ClassPathResource("test-import-file.xls").getFile())
+        .header("Content-Disposition", "form-data; name=\"file\"; filename=test-import-file.xls");
+
+    Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+    List<Future<HttpStatus>> responses = new ArrayList<>();
+    long start = System.nanoTime();
+    try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+      for (int i = 0; i < IMPORTS + READS; i++) {
+        boolean isImport = i % ((IMPORTS + READS) / IMPORTS) == 0;
+        responses.add(
+            clients.submit(
+                () -> {
+                  long requestStart = System.nanoTime();
+                  HttpStatus status = isImport ? importFile(bodyBuilder) : readSection(sectionId);
+                  latencies.add(System.nanoTime() - requestStart);
+                  return status;
+                }));
+      }
+      for (Future<HttpStatus> response : responses) {
+        assertTrue(response.get().is2xxSuccessful());
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    List<Long> sorted = latencies.stream().sorted().toList();
+    long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    log.info(
+        "{} threads: {} requests from {} clients, {} requests/s, p99 {} ms",
+        virtualThreads() ? "Virtual" : "Platform",
+        sorted.size(),
+        CLIENTS,
+        sorted.size() * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsed, 1),
+        TimeUnit.NANOSECONDS.toMillis(p99));
+  }
+
+  private HttpStatus importFile(MultipartBodyBuilder bodyBuilder) {
+    return HttpStatus.valueOf(
+        testClient
+            .post()
+            .uri("/api/v1/import?force=true")
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(bodyBuilder.build()))
+            .headers(headers -> headers.setBasicAuth("admin", "adminpassword"))
+            .exchange()
+            .returnResult(String.class)
+            .getStatus()
+            .value());
+  }
+
+  private HttpStatus readSection(Long id) {
+    return HttpStatus.valueOf(
+        testClient
+            .get()
+            .uri("/api/v1/sections/" + id)
+            .headers(headers -> headers.setBasicAuth("admin", "adminpassword"))
+            .exchange()
+            .returnResult(String.class)
+            .getStatus()
+            .value());
+  }
+
+  @AutoConfigureWebTestClient(timeout = "PT1M")
+  @SpringBootTest(
+      webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+      properties = {"spring.threads.virtual.enabled=false", "import.executor.queue-capacity=100"})
+  static class PlatformThreads extends ThreadingLoadIT {
+
+    @Override
+    protected boolean virtualThreads() {
+      return false;
+    }
+  }
+
+  @AutoConfigureWebTestClient(timeout = "PT1M")
+  @SpringBootTest(
+      webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+      properties = {"spring.threads.virtual.enabled=true", "import.executor.queue-capacity=100"})
+  static class VirtualThreads extends ThreadingLoadIT {
+
+    @Override
+    protected boolean virtualThreads() {
+      return true;
+    }
+  }
+}
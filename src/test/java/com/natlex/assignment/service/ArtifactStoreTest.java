@@ -0,0 +1,151 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.persistence.JobRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ArtifactStoreTest {
+
+  private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+  private final JobRepository jobRepository = mock(JobRepository.class);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ArtifactStore artifactStore = new ArtifactStore(jobRepository, meterRegistry);
+
+  @TempDir File artifactDir;
+
+  @TempDir File uploadDir;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ReflectionTestUtils.setField(artifactStore, "artifactDir", artifactDir.getAbsolutePath());
+    ReflectionTestUtils.setField(artifactStore, "uploadDir", uploadDir.getAbsolutePath());
+    ReflectionTestUtils.setField(artifactStore, "ttl", Duration.ofHours(24));
+    ReflectionTestUtils.setField(artifactStore, "maxSize", DataSize.ofBytes(100));
+    artifactStore.init();
+  }
+
+  @Test
+  void createExportFile_shouldCreateFileInArtifactDir() throws IOException {
+    File file = artifactStore.createExportFile(".csv.gz");
+
+    assertEquals(artifactDir, file.getParentFile());
+    assertTrue(file.getName().startsWith("export_"));
+    assertTrue(file.getName().endsWith(".csv.gz"));
+  }
+
+  @Test
+  void createPartFile_shouldCreateFileInArtifactDir() throws IOException {
+    File file = artifactStore.createPartFile(".csv");
+
+    assertEquals(artifactDir, file.getParentFile());
+    assertTrue(file.getName().startsWith("export_part_"));
+    assertTrue(file.getName().endsWith(".csv"));
+  }
+
+  @Test
+  void cleanUp_shouldDeleteExpiredPartsWithoutJob() throws IOException {
+    File leftover = file(artifactDir, "export_part_1.csv", 10, 25);
+    File writing = file(artifactDir, "export_part_2.csv", 10, 1);
+    givenFilesOfEndedJobs();
+
+    artifactStore.cleanUp();
+
+    assertFalse(leftover.exists());
+    assertTrue(writing.exists());
+    assertEquals(1, meterRegistry.counter("storage.artifacts.deleted", "reason", "ttl").count());
+    assertEquals(10, meterRegistry.get("storage.artifacts.used").gauge().value());
+  }
+
+  @Test
+  void cleanUp_shouldDeleteExpiredFilesOfFinishedJobs() throws IOException {
+    File expiredExport = file(artifactDir, "export_1.xls", 10, 25);
+    File expiredUpload = file(uploadDir, "sections.csv_upload_1.tmp", 10, 25);
+    File runningUpload = file(uploadDir, "sections.csv_upload_2.tmp", 10, 25);
+    File recentExport = file(artifactDir, "export_2.xls", 10, 1);
+    givenFilesOfEndedJobs(expiredExport, expiredUpload, recentExport);
+
+    artifactStore.cleanUp();
+
+    assertFalse(expiredExport.exists());
+    assertFalse(expiredUpload.exists());
+    assertTrue(runningUpload.exists());
+    assertTrue(recentExport.exists());
+    assertEquals(2, meterRegistry.counter("storage.artifacts.deleted", "reason", "ttl").count());
+    assertEquals(20, meterRegistry.get("storage.artifacts.used").gauge().value());
+  }
+
+  @Test
+  void cleanUp_shouldEvictLeastRecentlyUsedFilesBeyondMaxSize() throws IOException {
+    File oldest = file(artifactDir, "export_1.xls", 40, 3);
+    File touched = file(artifactDir, "export_2.xls", 40, 2);
+    File newest = file(artifactDir, "export_3.xls", 40, 1);
+    artifactStore.touch(touched);
+    givenFilesOfEndedJobs(oldest, touched, newest);
+
+    artifactStore.cleanUp();
+
+    assertFalse(oldest.exists());
+    assertTrue(touched.exists());
+    assertTrue(newest.exists());
+    assertEquals(1, meterRegistry.counter("storage.artifacts.deleted", "reason", "quota").count());
+    assertEquals(80, meterRegistry.get("storage.artifacts.used").gauge().value());
+  }
+
+  @Test
+  void cleanUp_shouldNotEvictFilesOfJobsInProgress() throws IOException {
+    File running = file(artifactDir, "export_1.xls", 120, 2);
+    File finished = file(artifactDir, "export_2.xls", 10, 1);
+    givenFilesOfEndedJobs(finished);
+
+    artifactStore.cleanUp();
+
+    assertTrue(running.exists());
+    assertFalse(finished.exists());
+    assertEquals(120, meterRegistry.get("storage.artifacts.used").gauge().value());
+  }
+
+  @Test
+  void cleanUp_shouldKeepFilesWithoutEndedJob() throws IOException {
+    File multipart = file(uploadDir, "upload_1.tmp", 120, 25);
+    File finished = file(artifactDir, "export_1.xls", 10, 25);
+    givenFilesOfEndedJobs(finished);
+
+    artifactStore.cleanUp();
+
+    assertTrue(multipart.exists());
+    assertFalse(finished.exists());
+    assertEquals(120, meterRegistry.get("storage.artifacts.used").gauge().value());
+  }
+
+  private void givenFilesOfEndedJobs(File... files) {
+    given(jobRepository.findFilePathsByJobStateNot(JobState.IN_PROGRESS))
+        .willReturn(Stream.of(files).map(File::getAbsolutePath).toList());
+  }
+
+  private File file(File dir, String name, int size, int hoursOld) throws IOException {
+    File file = new File(dir, name);
+    Files.write(file.toPath(), new byte[size]);
+    assertTrue(file.setLastModified(System.currentTimeMillis() - hoursOld * HOUR_MILLIS));
+    return file;
+  }
+}
@@ -0,0 +1,100 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.natlex.assignment.model.ExportFormat;
+
+class ExportCacheTest {
+
+  @TempDir File tempDir;
+
+  private ExportCache exportCache;
+
+  @BeforeEach
+  void setUp() {
+    exportCache = new ExportCache();
+    ReflectionTestUtils.setField(exportCache, "maxEntries", 2);
+    ReflectionTestUtils.setField(exportCache, "maxSize", DataSize.ofBytes(100));
+  }
+
+  @Test
+  void find_shouldMatchFormatAndVersion() throws IOException {
+    exportCache.put(ExportFormat.XLS, false, 1, "job1", file("job1", 10));
+
+    assertEquals(Optional.of("job1"), exportCache.find(ExportFormat.XLS, false, 1));
+    assertTrue(exportCache.find(ExportFormat.XLS, false, 2).isEmpty());
+    assertTrue(exportCache.find(ExportFormat.CSV, false, 1).isEmpty());
+  }
+
+  @Test
+  void find_shouldKeepCompressedAndPlainExportsApart() throws IOException {
+    exportCache.put(ExportFormat.CSV, true, 1, "job1", file("job1.csv.gz", 10));
+
+    assertEquals(Optional.of("job1"), exportCache.find(ExportFormat.CSV, true, 1));
+    assertTrue(exportCache.find(ExportFormat.CSV, false, 1).isEmpty());
+  }
+
+  @Test
+  void put_shouldEvictLeastRecentlyUsedBeyondMaxEntriesAndKeepTheFiles() throws IOException {
+    File first = file("job1", 10);
+    File second = file("job2", 10);
+    exportCache.put(ExportFormat.XLS, false, 1, "job1", first);
+    exportCache.put(ExportFormat.CSV, false, 1, "job2", second);
+    exportCache.find(ExportFormat.XLS, false, 1);
+
+    exportCache.put(ExportFormat.XLSX, false, 1, "job3", file("job3", 10));
+
+    assertEquals(Optional.of("job1"), exportCache.find(ExportFormat.XLS, false, 1));
+    assertTrue(exportCache.find(ExportFormat.CSV, false, 1).isEmpty());
+    assertTrue(first.exists());
+    assertTrue(second.exists());
+  }
+
+  @Test
+  void put_shouldEvictBeyondMaxSizeAndKeepTheFile() throws IOException {
+    File first = file("job1", 60);
+    exportCache.put(ExportFormat.XLS, false, 1, "job1", first);
+
+    exportCache.put(ExportFormat.XLS, false, 2, "job2", file("job2", 60));
+
+    assertTrue(exportCache.find(ExportFormat.XLS, false, 1).isEmpty());
+    assertEquals(Optional.of("job2"), exportCache.find(ExportFormat.XLS, false, 2));
+    assertTrue(first.exists());
+  }
+
+  @Test
+  void put_shouldSkipFilesLargerThanMaxSize() throws IOException {
+    File large = file("job1", 200);
+
+    exportCache.put(ExportFormat.XLS, false, 1, "job1", large);
+
+    assertTrue(exportCache.find(ExportFormat.XLS, false, 1).isEmpty());
+    assertTrue(large.exists());
+  }
+
+  @Test
+  void find_shouldDropEntriesWhoseFileIsGone() throws IOException {
+    File file = file("job1", 10);
+    exportCache.put(ExportFormat.XLS, false, 1, "job1", file);
+    Files.delete(file.toPath());
+
+    assertTrue(exportCache.find(ExportFormat.XLS, false, 1).isEmpty());
+  }
+
+  private File file(String name, int size) throws IOException {
+    File file = new File(tempDir, name);
+    Files.write(file.toPath(), new byte[size]);
+    return file;
+  }
+}
@@ -1,39 +1,92 @@
 package com.natlex.assignment.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.natlex.assignment.api.request.GeologicalClassRequest;
 import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.exception.ArtifactExpiredException;
+import com.natlex.assignment.exception.JobCancelledException;
+import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.model.ExportFormat;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.model.SectionFilter;
+import com.natlex.assignment.persistence.JobRepository;
 
 class ExportServiceTest {
 
   @Mock private SectionService sectionService;
 
+  @Mock private JobService jobService;
+
+  @Mock private JobProgressRegistry jobProgressRegistry;
+
+  @Mock private JobRepository jobRepository;
+
+  @Mock private DatasetVersion datasetVersion;
+
+  @Mock private ExportCache exportCache;
+
+  @Mock private ArtifactStore artifactStore;
+
+  @Spy private AsyncTaskExecutor workerExecutor = new SimpleAsyncTaskExecutor("test-worker-");
+
   @InjectMocks private ExportService exportService;
 
   @TempDir File tempDir;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws Exception {
     MockitoAnnotations.openMocks(this);
+    given(jobProgressRegistry.start(anyString()))
+        .willAnswer(invocation -> new JobProgress(invocation.getArgument(0)));
+    given(jobService.updateJobState(anyString(), eq(JobState.DONE))).willReturn(true);
+    given(artifactStore.createPartFile(anyString()))
+        .willAnswer(
+            invocation ->
+                Files.createTempFile(tempDir.toPath(), "export_part_", invocation.getArgument(0))
+                    .toFile());
   }
 
   @Test
@@ -58,13 +111,15 @@ class ExportServiceTest {
                         GeologicalClassRequest.builder().name("n4").code("c4").build(),
                         GeologicalClassRequest.builder().name("n2").code("c2").build()))
                 .build());
-    given(sectionService.getAllSections()).willReturn(sections);
+    givenSections(sections);
 
     File file = new File(tempDir, "test.xls");
-    CompletableFuture<String> result = exportService.exportFile(jobId, file.getAbsolutePath());
+    CompletableFuture<String> result =
+        exportService.exportFile(
+            jobId, file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE);
 
     assertEquals(jobId, result.get());
-    verify(sectionService, times(1)).getAllSections();
+    verify(sectionService, times(1)).forEachSection(eq(SectionFilter.NONE), any());
 
     try (FileInputStream fis = new FileInputStream(file);
         Workbook workbook = new HSSFWorkbook(fis)) {
@@ -94,13 +149,15 @@ class ExportServiceTest {
     String jobId = "jobId123";
 
     List<SectionResponse> sections = List.of();
-    given(sectionService.getAllSections()).willReturn(sections);
+    givenSections(sections);
 
     File file = new File(tempDir, "test.xls");
-    CompletableFuture<String> result = exportService.exportFile(jobId, file.getAbsolutePath());
+    CompletableFuture<String> result =
+        exportService.exportFile(
+            jobId, file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE);
 
     assertEquals(jobId, result.get());
-    verify(sectionService, times(1)).getAllSections();
+    verify(sectionService, times(1)).forEachSection(eq(SectionFilter.NONE), any());
 
     try (FileInputStream fis = new FileInputStream(file);
         Workbook workbook = new HSSFWorkbook(fis)) {
@@ -118,13 +175,15 @@ class ExportServiceTest {
     List<SectionResponse> sections =
         List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build());
 
-    given(sectionService.getAllSections()).willReturn(sections);
+    givenSections(sections);
 
     File file = new File(tempDir, "test.xls");
-    CompletableFuture<String> result = exportService.exportFile(jobId, file.getAbsolutePath());
+    CompletableFuture<String> result =
+        exportService.exportFile(
+            jobId, file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE);
 
     assertEquals(jobId, result.get());
-    verify(sectionService, times(1)).getAllSections();
+    verify(sectionService, times(1)).forEachSection(eq(SectionFilter.NONE), any());
 
     try (FileInputStream fis = new FileInputStream(file);
         Workbook workbook = new HSSFWorkbook(fis)) {
@@ -134,4 +193,392 @@ class ExportServiceTest {
       assertEquals("Section1", sheet.getRow(1).getCell(0).getStringCellValue());
     }
   }
+
+  @Test
+  void exportFile_shouldReportProgress() throws Exception {
+
+    String jobId = "jobId123";
+    JobProgress progress = new JobProgress(jobId);
+    given(jobProgressRegistry.start(jobId)).willReturn(progress);
+    givenSections(
+        List.of(
+            SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build(),
+            SectionResponse.builder().name("Section2").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.xls");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE)
+        .get();
+
+    assertEquals(2, progress.getRowsProcessed());
+    assertEquals(2L, progress.getTotalRows());
+    assertEquals(file.length(), progress.getBytesProcessed());
+    verify(jobProgressRegistry, times(1)).finish(jobId);
+  }
+
+  @Test
+  void exportFile_shouldFailJobAndFinishProgressWhenCountFails() {
+
+    String jobId = "jobId123";
+    given(sectionService.countSections(any(SectionFilter.class)))
+        .willThrow(new IllegalStateException("Database unavailable"));
+
+    File file = new File(tempDir, "test.csv");
+    assertThrows(
+        JobException.class,
+        () ->
+            exportService.exportFile(
+                jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE));
+
+    verify(jobProgressRegistry, times(1)).finish(jobId);
+    verify(jobService, never()).updateJobState(jobId, JobState.DONE);
+  }
+
+  @Test
+  void exportFile_shouldStopAndDeleteFileWhenCancelled() throws Exception {
+
+    String jobId = "jobId123";
+    JobProgress progress = new JobProgress(jobId);
+    given(jobProgressRegistry.start(jobId)).willReturn(progress);
+    givenSections(
+        List.of(
+            SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build(),
+            SectionResponse.builder().name("Section2").geologicalClasses(List.of()).build()));
+    progress.cancel();
+
+    File file = new File(tempDir, "test.csv");
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            exportService.exportFile(
+                jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE));
+
+    assertEquals(1, progress.getRowsProcessed());
+    assertFalse(file.exists());
+    verify(jobProgressRegistry, times(1)).finish(jobId);
+    verify(exportCache, never()).put(any(), anyBoolean(), anyLong(), anyString(), any());
+  }
+
+  @Test
+  void exportFile_shouldNotStartWhenCancelledWhileQueued() {
+
+    String jobId = "jobId123";
+    given(jobService.isCancelled(jobId)).willReturn(true);
+    givenSections(
+        List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.csv");
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            exportService.exportFile(
+                jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE));
+
+    assertFalse(file.exists());
+    verify(sectionService, never()).forEachSection(any(SectionFilter.class), any());
+  }
+
+  @Test
+  void exportFile_shouldDiscardFileWhenCancelledAfterLastSection() throws Exception {
+
+    String jobId = "jobId123";
+    given(jobService.updateJobState(jobId, JobState.DONE)).willReturn(false);
+    givenSections(
+        List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.csv");
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            exportService.exportFile(
+                jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE));
+
+    assertFalse(file.exists());
+    verify(exportCache, never()).put(any(), anyBoolean(), anyLong(), anyString(), any());
+  }
+
+  @Test
+  void cancelExport_shouldCancelJobAndFlagItIfRunning() {
+
+    exportService.cancelExport("jobId123");
+
+    verify(jobService, times(1)).cancelJob("jobId123", JobType.EXPORT, false);
+    verify(jobProgressRegistry, times(1)).cancel("jobId123");
+  }
+
+  @Test
+  void exportFile_shouldExportXlsxWithSameLayout() throws Exception {
+
+    String jobId = "jobId123";
+    givenSections(
+        List.of(
+            SectionResponse.builder()
+                .name("Section1")
+                .geologicalClasses(
+                    List.of(GeologicalClassRequest.builder().name("n1").code("c1").build()))
+                .build(),
+            SectionResponse.builder().name("Section2").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.xlsx");
+    CompletableFuture<String> result =
+        exportService.exportFile(
+            jobId, file.getAbsolutePath(), ExportFormat.XLSX, SectionFilter.NONE);
+
+    assertEquals(jobId, result.get());
+    try (FileInputStream fis = new FileInputStream(file);
+        Workbook workbook = new XSSFWorkbook(fis)) {
+      Sheet sheet = workbook.getSheet("Sections");
+      assertNotNull(sheet);
+      assertEquals("Section name", sheet.getRow(0).getCell(0).getStringCellValue());
+      assertEquals("Class name", sheet.getRow(0).getCell(1).getStringCellValue());
+      assertEquals("Class code", sheet.getRow(0).getCell(2).getStringCellValue());
+      assertEquals("Section1", sheet.getRow(1).getCell(0).getStringCellValue());
+      assertEquals("n1", sheet.getRow(1).getCell(1).getStringCellValue());
+      assertEquals("c1", sheet.getRow(1).getCell(2).getStringCellValue());
+      assertEquals("Section2", sheet.getRow(2).getCell(0).getStringCellValue());
+    }
+  }
+
+  @Test
+  void exportFile_shouldStreamXlsxBeyondRowWindow() throws Exception {
+
+    ReflectionTestUtils.setField(exportService, "xlsxRowWindow", 10);
+    String jobId = "jobId123";
+    List<SectionResponse> sections = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      sections.add(
+          SectionResponse.builder().name("Section" + i).geologicalClasses(List.of()).build());
+    }
+    givenSections(sections);
+
+    File file = new File(tempDir, "test.xlsx");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.XLSX, SectionFilter.NONE)
+        .get();
+
+    try (FileInputStream fis = new FileInputStream(file);
+        Workbook workbook = new XSSFWorkbook(fis)) {
+      Sheet sheet = workbook.getSheet("Sections");
+      assertEquals(250, sheet.getLastRowNum());
+      assertEquals("Section249", sheet.getRow(250).getCell(0).getStringCellValue());
+    }
+  }
+
+  @Test
+  void exportFile_shouldExportCsv() throws Exception {
+
+    String jobId = "jobId123";
+    givenSections(
+        List.of(
+            SectionResponse.builder()
+                .name("Section1")
+                .geologicalClasses(
+                    List.of(GeologicalClassRequest.builder().name("n1").code("c1").build()))
+                .build()));
+
+    File file = new File(tempDir, "test.csv");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE)
+        .get();
+
+    assertEquals(
+        "Section name,Class name,Class code\r\nSection1,n1,c1\r\n",
+        Files.readString(file.toPath()));
+  }
+
+  @Test
+  void exportFile_shouldConcatenateShardsInIdOrderWhenParallel() throws Exception {
+
+    String jobId = "jobId123";
+    ReflectionTestUtils.setField(exportService, "parallelWorkers", 3);
+    ReflectionTestUtils.setField(exportService, "shardsPerWorker", 2);
+    List<SectionResponse> sections = new ArrayList<>();
+    for (long id = 1; id <= 100; id++) {
+      sections.add(
+          SectionResponse.builder()
+              .id(id)
+              .name("Section" + id)
+              .geologicalClasses(
+                  id % 2 == 0
+                      ? List.of(GeologicalClassRequest.builder().name("n").code("c").build())
+                      : List.of())
+              .build());
+    }
+    givenSections(sections);
+    List<SectionFilter> shards = new ArrayList<>();
+    for (long from = 1; from <= 100; from += 17) {
+      shards.add(SectionFilter.NONE.withIdRange(from, Math.min(from + 16, 100)));
+    }
+    given(sectionService.splitByIdRange(SectionFilter.NONE, 6)).willReturn(shards);
+
+    File file = new File(tempDir, "test.csv");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE)
+        .get();
+
+    StringBuilder csv = new StringBuilder("Section name,Class name,Class code\r\n");
+    for (SectionResponse section : sections) {
+      csv.append(section.name()).append(section.id() % 2 == 0 ? ",n,c" : ",,").append("\r\n");
+    }
+    assertEquals(csv.toString(), Files.readString(file.toPath()));
+    verify(artifactStore, times(6)).createPartFile(".csv");
+    assertArrayEquals(new String[] {"test.csv"}, tempDir.list());
+  }
+
+  @Test
+  void exportFile_shouldWriteSpreadsheetSeriallyWhenParallel() throws Exception {
+
+    ReflectionTestUtils.setField(exportService, "parallelWorkers", 3);
+    givenSections(
+        List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.xls");
+    exportService
+        .exportFile("jobId123", file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE)
+        .get();
+
+    try (Workbook workbook = new HSSFWorkbook(new FileInputStream(file))) {
+      Sheet sheet = workbook.getSheet("Sections");
+      assertEquals("Section1", sheet.getRow(1).getCell(0).getStringCellValue());
+    }
+    verify(sectionService, never()).splitByIdRange(any(SectionFilter.class), anyInt());
+  }
+
+  @Test
+  void exportFile_shouldGzipExportWhenPathEndsWithGz() throws Exception {
+
+    String jobId = "jobId123";
+    givenSections(
+        List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build()));
+
+    File file = new File(tempDir, "test.csv.gz");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.CSV, SectionFilter.NONE)
+        .get();
+
+    String csv = "Section name\r\nSection1\r\n";
+    try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+      assertEquals(csv, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    verify(jobRepository, times(1)).updateUncompressedBytes(jobId, csv.length());
+    verify(exportCache, times(1)).put(ExportFormat.CSV, true, 0L, jobId, file.getAbsoluteFile());
+  }
+
+  @Test
+  void exportFile_shouldCacheExportUnderVersionReadBeforeExporting() throws Exception {
+
+    String jobId = "jobId123";
+    given(datasetVersion.current()).willReturn(7L, 8L);
+    givenSections(List.of());
+
+    File file = new File(tempDir, "test.xls");
+    exportService
+        .exportFile(jobId, file.getAbsolutePath(), ExportFormat.XLS, SectionFilter.NONE)
+        .get();
+
+    verify(exportCache, times(1)).put(ExportFormat.XLS, false, 7L, jobId, file.getAbsoluteFile());
+  }
+
+  @Test
+  void findReusableExport_shouldReturnDoneJobOfCurrentVersion() {
+
+    File file = new File(tempDir, "export.csv");
+    var job =
+        Job.builder()
+            .id("jobId123")
+            .jobState(JobState.DONE)
+            .filePath(file.getAbsolutePath())
+            .build();
+    given(datasetVersion.current()).willReturn(3L);
+    given(exportCache.find(ExportFormat.CSV, false, 3L)).willReturn(Optional.of(job.getId()));
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+
+    assertEquals(Optional.of(job), exportService.findReusableExport(ExportFormat.CSV, false));
+    verify(artifactStore, times(1)).touch(file);
+  }
+
+  @Test
+  void findReusableExport_shouldIgnoreJobThatIsNotDone() {
+
+    var job = Job.builder().id("jobId123").jobState(JobState.ERROR).build();
+    given(exportCache.find(ExportFormat.CSV, false, 0L)).willReturn(Optional.of(job.getId()));
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+
+    assertTrue(exportService.findReusableExport(ExportFormat.CSV, false).isEmpty());
+  }
+
+  @Test
+  void getExportedFile_shouldTouchExistingFile() throws Exception {
+
+    File file = new File(tempDir, "test.xls");
+    Files.write(file.toPath(), new byte[] {1});
+    var job =
+        Job.builder()
+            .id("jobId123")
+            .jobState(JobState.DONE)
+            .filePath(file.getAbsolutePath())
+            .build();
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+
+    assertEquals(file, exportService.getExportedFile(job.getId()));
+    verify(artifactStore, times(1)).touch(file);
+  }
+
+  @Test
+  void getExportedFile_shouldThrowWhenFileExpired() {
+
+    var job =
+        Job.builder()
+            .id("jobId123")
+            .jobState(JobState.DONE)
+            .filePath(new File(tempDir, "deleted.xls").getAbsolutePath())
+            .build();
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+
+    assertThrows(ArtifactExpiredException.class, () -> exportService.getExportedFile(job.getId()));
+  }
+
+  @Test
+  void getExportedFile_shouldThrowWhenExportCancelled() {
+
+    var job = Job.builder().id("jobId123").jobState(JobState.CANCELLED).build();
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+
+    assertThrows(ArtifactExpiredException.class, () -> exportService.getExportedFile(job.getId()));
+  }
+
+  @Test
+  void streamExport_shouldWriteWorkbookToStreamWithoutJob() throws Exception {
+
+    givenSections(
+        List.of(SectionResponse.builder().name("Section1").geologicalClasses(List.of()).build()));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exportService.streamExport(ExportFormat.XLS, SectionFilter.NONE, out);
+
+    try (Workbook workbook = new HSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+      Sheet sheet = workbook.getSheet("Sections");
+      assertEquals("Section1", sheet.getRow(1).getCell(0).getStringCellValue());
+    }
+    verify(jobProgressRegistry, never()).start(anyString());
+  }
+
+  private void givenSections(List<SectionResponse> sections) {
+    given(sectionService.countSections(any(SectionFilter.class)))
+        .willReturn((long) sections.size());
+    given(sectionService.getMaxGeologicalClassCount(any(SectionFilter.class)))
+        .willReturn(
+            sections.stream().mapToInt(s -> s.geologicalClasses().size()).max().orElse(0));
+    doAnswer(
+            invocation -> {
+              SectionFilter filter = invocation.getArgument(0);
+              sections.stream()
+                  .filter(s -> filter.minId() == null || s.id() >= filter.minId())
+                  .filter(s -> filter.maxId() == null || s.id() <= filter.maxId())
+                  .forEach(invocation.<Consumer<SectionResponse>>getArgument(1));
+              return null;
+            })
+        .when(sectionService)
+        .forEachSection(any(SectionFilter.class), any());
+  }
 }
@@ -0,0 +1,62 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FileStorageServiceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final FileStorageService fileStorageService = new FileStorageService(meterRegistry);
+
+  @TempDir File tempDir;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ReflectionTestUtils.setField(fileStorageService, "uploadDir", tempDir.getAbsolutePath());
+    fileStorageService.init();
+  }
+
+  @Test
+  void saveFile_shouldStoreUploadInUploadDir() throws Exception {
+    byte[] content = "Section name,Class 1 name,Class 1 code\n".getBytes();
+    var upload = new MockMultipartFile("file", "sections.csv", "text/csv", content);
+
+    File storedFile = fileStorageService.saveFile(upload, System.nanoTime());
+
+    assertEquals(tempDir, storedFile.getParentFile());
+    assertTrue(storedFile.getName().startsWith("sections.csv_upload_"));
+    assertArrayEquals(content, Files.readAllBytes(storedFile.toPath()));
+    assertEquals(1, meterRegistry.summary("storage.upload.throughput").count());
+  }
+
+  @Test
+  void saveFile_shouldSanitizeOriginalFilename() throws Exception {
+    var upload = new MockMultipartFile("file", "../../etc/pass wd.xls", null, new byte[] {1});
+
+    File storedFile = fileStorageService.saveFile(upload, System.nanoTime());
+
+    assertEquals(tempDir, storedFile.getParentFile());
+    assertTrue(storedFile.getName().startsWith("pass_wd.xls_upload_"));
+  }
+
+  @Test
+  void contentHash_shouldReturnSha256OfStoredFile() throws Exception {
+    File file = new File(tempDir, "abc.txt");
+    Files.writeString(file.toPath(), "abc");
+
+    assertEquals(
+        "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        fileStorageService.contentHash(file));
+  }
+}
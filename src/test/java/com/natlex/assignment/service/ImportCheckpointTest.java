@@ -0,0 +1,36 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ImportCheckpointTest {
+
+  @Test
+  void checkpointWith_shouldAdvanceWithChunksCommittedInOrder() {
+    ImportCheckpoint checkpoint = new ImportCheckpoint(0);
+    ImportChunk first = new ImportChunk(0, List.of(1, 2), List.of());
+    ImportChunk second = new ImportChunk(1, List.of(3, 5), List.of());
+
+    assertEquals(2, checkpoint.checkpointWith(first));
+    checkpoint.committed(first);
+    assertEquals(5, checkpoint.checkpointWith(second));
+  }
+
+  @Test
+  void checkpointWith_shouldWaitForEarlierChunks() {
+    ImportCheckpoint checkpoint = new ImportCheckpoint(0);
+    ImportChunk first = new ImportChunk(0, List.of(1, 2), List.of());
+    ImportChunk second = new ImportChunk(1, List.of(3, 4), List.of());
+    ImportChunk third = new ImportChunk(2, List.of(5, 6), List.of());
+
+    assertEquals(0, checkpoint.checkpointWith(second));
+    checkpoint.committed(second);
+    assertEquals(0, checkpoint.checkpointWith(third));
+    checkpoint.committed(third);
+
+    assertEquals(6, checkpoint.checkpointWith(first));
+  }
+}
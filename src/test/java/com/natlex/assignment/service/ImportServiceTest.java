@@ -2,35 +2,66 @@ package com.natlex.assignment.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.natlex.assignment.api.request.GeologicalClassRequest;
 import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.exception.JobCancelledException;
 import com.natlex.assignment.exception.JobException;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
 import com.natlex.assignment.util.FileUtil;
 
 class ImportServiceTest {
 
   @Mock private SectionService sectionService;
 
+  @Mock private JobService jobService;
+
+  @Mock private JobProgressRegistry jobProgressRegistry;
+
+  @Spy private AsyncTaskExecutor workerExecutor = new SimpleAsyncTaskExecutor("test-worker-");
+
   @InjectMocks private ImportService importService;
 
   @TempDir File tempDir;
@@ -38,6 +69,9 @@ class ImportServiceTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    given(jobProgressRegistry.start(anyString()))
+        .willAnswer(invocation -> new JobProgress(invocation.getArgument(0)));
+    given(jobService.updateJobState(anyString(), eq(JobState.DONE))).willReturn(true);
   }
 
   @Test
@@ -53,17 +87,23 @@ class ImportServiceTest {
 
     File file = FileUtil.createTempExcelFile(request, tempDir);
 
-    doNothing().when(sectionService).saveImportedSection(any(SectionRequest.class), anyString());
-    CompletableFuture<String> result = importService.importFile("jobId", file.getAbsolutePath());
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
 
     assertEquals("jobId", result.get());
-    verify(sectionService, times(1)).saveImportedSection(request, "jobId");
+    verify(sectionService, times(1))
+        .saveImportedSections(chunk(0, 1, List.of(request)), "jobId", 1);
   }
 
   @Test
   void importFile_shouldHandleFileNotFound() {
     Exception exception =
-        assertThrows(IOException.class, () -> importService.importFile("jobId", "invalid-path"));
+        assertThrows(
+            IOException.class,
+            () ->
+                importService.importFile(
+                    "jobId", "invalid-path", FileFormat.XLS, ImportMode.APPEND));
 
     System.out.println(exception);
     assertTrue(exception.getMessage().contains("invalid-path"));
@@ -78,7 +118,10 @@ class ImportServiceTest {
 
     Exception exception =
         assertThrows(
-            JobException.class, () -> importService.importFile("jobId", file.getAbsolutePath()));
+            JobException.class,
+            () ->
+                importService.importFile(
+                    "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
 
     assertTrue(exception.getMessage().contains("Invalid header signature"));
   }
@@ -87,10 +130,13 @@ class ImportServiceTest {
   void importFile_shouldHandleEmptyFile() throws Exception {
 
     File file = FileUtil.createEmptyExcelFile(tempDir);
-    CompletableFuture<String> result = importService.importFile("jobId", file.getAbsolutePath());
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
 
     assertEquals("jobId", result.get());
-    verify(sectionService, times(0)).saveImportedSection(any(SectionRequest.class), eq("jobId"));
+    verify(sectionService, times(0))
+        .saveImportedSections(any(ImportChunk.class), eq("jobId"), anyInt());
   }
 
   @Test
@@ -103,12 +149,351 @@ class ImportServiceTest {
                 List.of(GeologicalClassRequest.builder().name("class1").code("code1").build()))
             .build();
     File file = FileUtil.createTempExcelFile(request, tempDir);
-    doNothing().when(sectionService).saveImportedSection(any(SectionRequest.class), anyString());
-    CompletableFuture<String> result = importService.importFile("jobId", file.getAbsolutePath());
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
+
+    assertEquals("jobId", result.get());
+    assertEquals("jobId", result.get());
+    verify(sectionService, times(1))
+        .saveImportedSections(chunk(0, 1, List.of(request)), "jobId", 1);
+  }
+
+  @Test
+  void importFile_shouldImportEveryRowInOrder() throws Exception {
+
+    var requests =
+        List.of(
+            SectionRequest.builder()
+                .name("section1")
+                .geologicalClasses(
+                    List.of(
+                        GeologicalClassRequest.builder().name("class1").code("code1").build(),
+                        GeologicalClassRequest.builder().name("class2").code("code2").build()))
+                .build(),
+            SectionRequest.builder()
+                .name("section2")
+                .geologicalClasses(
+                    List.of(GeologicalClassRequest.builder().name("class3").code("code3").build()))
+                .build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
+
+    assertEquals("jobId", result.get());
+    InOrder inOrder = inOrder(sectionService);
+    for (int i = 0; i < requests.size(); i++) {
+      inOrder
+          .verify(sectionService)
+          .saveImportedSections(chunk(i, i + 1, List.of(requests.get(i))), "jobId", i + 1);
+    }
+  }
+
+  @Test
+  void importFile_shouldPersistRowsInChunks() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
+
+    assertEquals("jobId", result.get());
+    verify(sectionService, times(1))
+        .saveImportedSections(chunk(0, 1, requests.subList(0, 2)), "jobId", 2);
+    verify(sectionService, times(1))
+        .saveImportedSections(chunk(1, 3, requests.subList(2, 3)), "jobId", 3);
+    verify(sectionService, times(2))
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+  }
+
+  @Test
+  void importFile_shouldPersistChunksThroughWriterPipeline() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    ReflectionTestUtils.setField(importService, "writerCount", 2);
+    ReflectionTestUtils.setField(importService, "queueCapacity", 1);
+    var requests = new ArrayList<SectionRequest>();
+    for (int i = 0; i < 9; i++) {
+      requests.add(
+          SectionRequest.builder().name("section" + i).geologicalClasses(List.of()).build());
+    }
+    var persisted = new ConcurrentLinkedQueue<SectionRequest>();
+    doAnswer(
+            invocation -> persisted.addAll(invocation.<ImportChunk>getArgument(0).sections()))
+        .when(sectionService)
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
+
+    assertEquals("jobId", result.get());
+    verify(sectionService, times(5))
+        .saveImportedSections(any(ImportChunk.class), eq("jobId"), anyInt());
+    assertEquals(Set.copyOf(requests), Set.copyOf(persisted));
+  }
+
+  @Test
+  void importFile_shouldFailJobWhenWriterFails() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    ReflectionTestUtils.setField(importService, "writerCount", 2);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+    doThrow(new IllegalStateException("database unavailable"))
+        .when(sectionService)
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    Exception exception =
+        assertThrows(
+            JobException.class,
+            () ->
+                importService.importFile(
+                    "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
+
+    assertTrue(exception.getMessage().contains("database unavailable"));
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void importFile_shouldStopAndRollBackWhenCancelled() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    JobProgress progress = new JobProgress("jobId");
+    given(jobProgressRegistry.start("jobId")).willReturn(progress);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+    doAnswer(
+            invocation -> {
+              progress.cancel();
+              return null;
+            })
+        .when(sectionService)
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            importService.importFile(
+                "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
+
+    verify(sectionService, times(1))
+        .saveImportedSections(any(ImportChunk.class), eq("jobId"), anyInt());
+    verify(sectionService, times(1)).rollBackImport("jobId");
+    verify(jobProgressRegistry, times(1)).finish("jobId");
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void importFile_shouldRollBackWhenCancelledAfterLastRow() throws Exception {
+
+    given(jobService.updateJobState("jobId", JobState.DONE)).willReturn(false);
+    var request = SectionRequest.builder().name("section1").geologicalClasses(List.of()).build();
+
+    File file = FileUtil.createTempExcelFile(request, tempDir);
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            importService.importFile(
+                "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
+
+    verify(sectionService, times(1))
+        .saveImportedSections(any(ImportChunk.class), eq("jobId"), anyInt());
+    verify(sectionService, times(1)).rollBackImport("jobId");
+  }
+
+  @Test
+  void importFile_shouldNotStartWhenCancelledWhileQueued() throws Exception {
+
+    given(jobService.isCancelled("jobId")).willReturn(true);
+    var request = SectionRequest.builder().name("section1").geologicalClasses(List.of()).build();
+
+    File file = FileUtil.createTempExcelFile(request, tempDir);
+    assertThrows(
+        JobCancelledException.class,
+        () ->
+            importService.importFile(
+                "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
+
+    verify(sectionService, never())
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+    verify(sectionService, never()).deleteImportedSectionsAfter(anyString(), anyInt());
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void cancelImport_shouldRecordRollbackAndLeaveItToTheImport() {
+
+    importService.cancelImport("jobId", true);
+
+    verify(jobService, times(1)).cancelJob("jobId", JobType.IMPORT, true);
+    verify(jobProgressRegistry, times(1)).cancel("jobId");
+    verify(sectionService, never()).rollBackImport(anyString());
+    verify(sectionService, never()).deleteImportedSectionsAfter(anyString(), anyInt());
+  }
+
+  @Test
+  void importFile_shouldFailJobOnUnparsableRow() throws Exception {
+
+    File file = new File(tempDir, "test.xls");
+    try (Workbook workbook = new HSSFWorkbook();
+        FileOutputStream out = new FileOutputStream(file)) {
+      Sheet sheet = workbook.createSheet("Sheet1");
+      sheet.createRow(0).createCell(0).setCellValue("Section name");
+      sheet.createRow(1).createCell(0).setCellValue(42);
+      workbook.write(out);
+    }
+
+    Exception exception =
+        assertThrows(
+            JobException.class,
+            () ->
+                importService.importFile(
+                    "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND));
+
+    assertEquals("Row 1: Cannot get a STRING value from a NUMERIC cell", exception.getMessage());
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void importFile_shouldImportCsvFile() throws Exception {
+
+    File file = new File(tempDir, "test.csv");
+    Files.writeString(
+        file.toPath(),
+        "Section name,Class 1 name,Class 1 code\r\n\"Section, 1\",class1,code1\r\n");
+
+    CompletableFuture<String> result =
+        importService.importFile(
+            "jobId", file.getAbsolutePath(), FileFormat.CSV, ImportMode.APPEND);
 
     assertEquals("jobId", result.get());
+    var request =
+        SectionRequest.builder()
+            .name("Section, 1")
+            .geologicalClasses(
+                List.of(GeologicalClassRequest.builder().name("class1").code("code1").build()))
+            .build();
+    verify(sectionService, times(1))
+        .saveImportedSections(chunk(0, 1, List.of(request)), "jobId", 1);
+  }
+
+  @Test
+  void resumeImport_shouldContinueAfterCheckpoint() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    Job job =
+        Job.builder()
+            .id("jobId")
+            .filePath(file.getAbsolutePath())
+            .fileFormat(FileFormat.XLS)
+            .checkpointRow(1)
+            .build();
+
+    CompletableFuture<String> result = importService.resumeImport(job);
+
     assertEquals("jobId", result.get());
-    verify(sectionService, times(1)).saveImportedSection(request, "jobId");
+    InOrder inOrder = inOrder(sectionService);
+    inOrder.verify(sectionService).deleteImportedSectionsAfter("jobId", 1);
+    inOrder
+        .verify(sectionService)
+        .saveImportedSections(chunk(0, 2, requests.subList(1, 3)), "jobId", 3);
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void importFile_shouldMergeChunksWithSingleWriter() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    ReflectionTestUtils.setField(importService, "writerCount", 4);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    importService
+        .importFile("jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.MERGE)
+        .get();
+
+    InOrder inOrder = inOrder(sectionService);
+    inOrder
+        .verify(sectionService)
+        .mergeImportedSections(chunk(0, 1, requests.subList(0, 2)), "jobId", 2);
+    inOrder
+        .verify(sectionService)
+        .mergeImportedSections(chunk(1, 3, requests.subList(2, 3)), "jobId", 3);
+    verify(sectionService, times(0))
+        .saveImportedSections(any(ImportChunk.class), anyString(), anyInt());
+  }
+
+  @Test
+  void resumeImport_shouldNotDeleteRowsWhenMerging() throws Exception {
+
+    var request = SectionRequest.builder().name("section1").geologicalClasses(List.of()).build();
+    File file = FileUtil.createTempExcelFile(request, tempDir);
+    Job job =
+        Job.builder()
+            .id("jobId")
+            .filePath(file.getAbsolutePath())
+            .fileFormat(FileFormat.XLS)
+            .importMode(ImportMode.MERGE)
+            .checkpointRow(0)
+            .build();
+
+    importService.resumeImport(job).get();
+
+    verify(sectionService, times(0)).deleteImportedSectionsAfter(anyString(), anyInt());
+    verify(sectionService).mergeImportedSections(chunk(0, 1, List.of(request)), "jobId", 1);
+  }
+
+  @Test
+  void importFile_shouldReportProgress() throws Exception {
+
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    var requests =
+        List.of(
+            SectionRequest.builder().name("section1").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build(),
+            SectionRequest.builder().name("section3").geologicalClasses(List.of()).build());
+    JobProgress progress = new JobProgress("jobId");
+    given(jobProgressRegistry.start("jobId")).willReturn(progress);
+
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+    importService
+        .importFile("jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND)
+        .get();
+
+    assertEquals(3, progress.getRowsProcessed());
+    assertEquals(3L, progress.getTotalRows());
+    assertTrue(progress.getBytesProcessed() > 0);
+    verify(jobProgressRegistry, times(1)).finish("jobId");
   }
 
   @Test
@@ -124,9 +509,15 @@ class ImportServiceTest {
             .build();
 
     File file = FileUtil.createTempExcelFile(request, tempDir);
-    doNothing().when(sectionService).saveImportedSection(any(SectionRequest.class), anyString());
-    importService.importFile("jobId", file.getAbsolutePath());
+    importService.importFile(
+        "jobId", file.getAbsolutePath(), FileFormat.XLS, ImportMode.APPEND);
 
     assertFalse(file.exists());
   }
+
+  private static ImportChunk chunk(long sequence, int firstRow, List<SectionRequest> sections) {
+    List<Integer> rowIndexes =
+        IntStream.range(firstRow, firstRow + sections.size()).boxed().toList();
+    return new ImportChunk(sequence, rowIndexes, sections);
+  }
 }
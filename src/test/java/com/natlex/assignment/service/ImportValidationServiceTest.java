@@ -0,0 +1,145 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import jakarta.validation.Validation;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.response.ImportValidationResponse;
+import com.natlex.assignment.api.response.RowErrorResponse;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.util.FileUtil;
+
+class ImportValidationServiceTest {
+
+  private final ImportValidationService importValidationService =
+      new ImportValidationService(Validation.buildDefaultValidatorFactory().getValidator());
+
+  @TempDir File tempDir;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(importValidationService, "maxErrors", 100);
+  }
+
+  @Test
+  void validate_shouldAcceptValidFile() throws Exception {
+    var requests =
+        List.of(
+            SectionRequest.builder()
+                .name("section1")
+                .geologicalClasses(
+                    List.of(GeologicalClassRequest.builder().name("class1").code("code1").build()))
+                .build(),
+            SectionRequest.builder().name("section2").geologicalClasses(List.of()).build());
+    File file = FileUtil.createTempExcelFile(requests, tempDir);
+
+    ImportValidationResponse report = importValidationService.validate(file, FileFormat.XLS);
+
+    assertTrue(report.valid());
+    assertEquals(2, report.rowsChecked());
+    assertEquals(0, report.errorCount());
+    assertTrue(report.errors().isEmpty());
+    assertTrue(file.exists());
+  }
+
+  @Test
+  void validate_shouldReportUnparsableCellsAndContinue() throws Exception {
+    File file = new File(tempDir, "test.xls");
+    try (Workbook workbook = new HSSFWorkbook();
+        FileOutputStream out = new FileOutputStream(file)) {
+      Sheet sheet = workbook.createSheet("Sheet1");
+      Row header = sheet.createRow(0);
+      header.createCell(0).setCellValue("Section name");
+      header.createCell(1).setCellValue("Class 1 name");
+      header.createCell(2).setCellValue("Class 1 code");
+      Row numeric = sheet.createRow(1);
+      numeric.createCell(0).setCellValue("section1");
+      numeric.createCell(1).setCellValue(42);
+      numeric.createCell(2).setCellValue("code1");
+      Row valid = sheet.createRow(2);
+      valid.createCell(0).setCellValue("section2");
+      valid.createCell(1).setCellValue("class2");
+      valid.createCell(2).setCellValue("code2");
+      workbook.write(out);
+    }
+
+    ImportValidationResponse report = importValidationService.validate(file, FileFormat.XLS);
+
+    assertFalse(report.valid());
+    assertEquals(2, report.rowsChecked());
+    assertEquals(
+        List.of(
+            RowErrorResponse.builder()
+                .row(2)
+                .messages(List.of("Cannot get a STRING value from a NUMERIC cell"))
+                .build()),
+        report.errors());
+  }
+
+  @Test
+  void validate_shouldApplyBeanValidationToEveryRow() throws Exception {
+    File file = new File(tempDir, "test.csv");
+    Files.writeString(
+        file.toPath(),
+        "Section name,Class 1 name,Class 1 code\n"
+            + ",class1,code1\n"
+            + "section2,class2,\"\"\n"
+            + "section3,class3,code3\n");
+
+    ImportValidationResponse report = importValidationService.validate(file, FileFormat.CSV);
+
+    assertFalse(report.valid());
+    assertEquals(3, report.rowsChecked());
+    assertEquals(2, report.errorCount());
+    assertEquals(
+        List.of(
+            RowErrorResponse.builder()
+                .row(2)
+                .messages(List.of("Missing section name at column 0 of row 1"))
+                .build(),
+            RowErrorResponse.builder()
+                .row(3)
+                .messages(List.of("geologicalClasses[0].code: Code is mandatory"))
+                .build()),
+        report.errors());
+  }
+
+  @Test
+  void validate_shouldCapReportedErrors() throws Exception {
+    ReflectionTestUtils.setField(importValidationService, "maxErrors", 1);
+    File file = new File(tempDir, "test.csv");
+    Files.writeString(file.toPath(), "Section name\n\"\"\n\"\"\n\"\"\n");
+
+    ImportValidationResponse report = importValidationService.validate(file, FileFormat.CSV);
+
+    assertEquals(3, report.errorCount());
+    assertEquals(1, report.errors().size());
+  }
+
+  @Test
+  void validate_shouldReportUnreadableFile() throws Exception {
+    File file = new File(tempDir, "test.csv");
+    Files.writeString(file.toPath(), "Section name\n\"unterminated\n");
+
+    ImportValidationResponse report = importValidationService.validate(file, FileFormat.CSV);
+
+    assertFalse(report.valid());
+    assertEquals("Unterminated quoted field in row 1", report.fileError());
+  }
+}
@@ -0,0 +1,118 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.natlex.assignment.api.response.JobStateResponse;
+import com.natlex.assignment.exception.TooManySubscribersException;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+
+class JobEventPublisherTest {
+
+  private final JobService jobService = mock(JobService.class);
+
+  private final List<Runnable> sends = new ArrayList<>();
+
+  private final TaskExecutor eventExecutor = sends::add;
+
+  private final JobEventPublisher jobEventPublisher =
+      new JobEventPublisher(jobService, eventExecutor);
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(jobEventPublisher, "maxSubscribers", 1);
+    ReflectionTestUtils.setField(jobEventPublisher, "timeout", Duration.ofMinutes(1));
+    jobEventPublisher.init();
+  }
+
+  @Test
+  void subscribe_shouldRejectSubscribersBeyondMax() {
+    given(jobService.getJobState("job1", JobType.IMPORT)).willReturn(state(JobState.IN_PROGRESS));
+
+    assertNotNull(jobEventPublisher.subscribe("job1", JobType.IMPORT));
+    assertThrows(
+        TooManySubscribersException.class,
+        () -> jobEventPublisher.subscribe("job1", JobType.IMPORT));
+  }
+
+  @Test
+  void subscribe_shouldReleaseSubscriptionOfFinishedJob() {
+    given(jobService.getJobState("job1", JobType.EXPORT)).willReturn(state(JobState.DONE));
+
+    jobEventPublisher.subscribe("job1", JobType.EXPORT);
+
+    assertNotNull(jobEventPublisher.subscribe("job1", JobType.EXPORT));
+  }
+
+  @Test
+  void subscribe_shouldReleaseSubscriptionOfMissingJob() {
+    given(jobService.getJobState("job1", JobType.EXPORT))
+        .willThrow(new EntityNotFoundException("Job not found"));
+    given(jobService.getJobState("job2", JobType.EXPORT)).willReturn(state(JobState.IN_PROGRESS));
+
+    assertThrows(
+        EntityNotFoundException.class, () -> jobEventPublisher.subscribe("job1", JobType.EXPORT));
+    assertNotNull(jobEventPublisher.subscribe("job2", JobType.EXPORT));
+  }
+
+  @Test
+  void publish_shouldReleaseSubscriptionOnceJobEnds() {
+    given(jobService.getJobState("job1", JobType.IMPORT))
+        .willReturn(state(JobState.IN_PROGRESS), state(JobState.ERROR));
+    given(jobService.getJobState("job2", JobType.IMPORT)).willReturn(state(JobState.IN_PROGRESS));
+    jobEventPublisher.subscribe("job1", JobType.IMPORT);
+
+    jobEventPublisher.publish("job1");
+
+    assertNotNull(jobEventPublisher.subscribe("job2", JobType.IMPORT));
+  }
+
+  @Test
+  void publishProgress_shouldReadStateOncePerJob() {
+    ReflectionTestUtils.setField(jobEventPublisher, "maxSubscribers", 3);
+    jobEventPublisher.init();
+    given(jobService.getJobState("job1", JobType.IMPORT)).willReturn(state(JobState.IN_PROGRESS));
+    for (int i = 0; i < 3; i++) {
+      jobEventPublisher.subscribe("job1", JobType.IMPORT);
+    }
+
+    jobEventPublisher.publishProgress();
+
+    // One read for each subscription, and one for the progress of all three.
+    verify(jobService, times(4)).getJobState("job1", JobType.IMPORT);
+    assertEquals(3, sends.size());
+  }
+
+  @Test
+  void publishProgress_shouldSkipSubscriberStillReceivingPreviousEvent() {
+    given(jobService.getJobState("job1", JobType.IMPORT)).willReturn(state(JobState.IN_PROGRESS));
+    jobEventPublisher.subscribe("job1", JobType.IMPORT);
+
+    jobEventPublisher.publishProgress();
+    jobEventPublisher.publishProgress();
+    assertEquals(1, sends.size());
+
+    sends.remove(0).run();
+    jobEventPublisher.publishProgress();
+    assertEquals(1, sends.size());
+  }
+
+  private static JobStateResponse state(JobState state) {
+    return JobStateResponse.builder().state(state).build();
+  }
+}
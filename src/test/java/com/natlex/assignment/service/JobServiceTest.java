@@ -0,0 +1,200 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.natlex.assignment.exception.JobNotCancellableException;
+import com.natlex.assignment.model.FileFormat;
+import com.natlex.assignment.model.ImportMode;
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+import com.natlex.assignment.model.JobType;
+import com.natlex.assignment.persistence.JobRepository;
+
+class JobServiceTest {
+
+  private final JobRepository jobRepository = mock(JobRepository.class);
+
+  private final JobProgressRegistry jobProgressRegistry = mock(JobProgressRegistry.class);
+
+  private final JobStateCache jobStateCache = new JobStateCache();
+
+  private final JobService jobService =
+      new JobService(jobRepository, jobProgressRegistry, mock(ArtifactStore.class), jobStateCache);
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(jobStateCache, "maxEntries", 10);
+    ReflectionTestUtils.setField(jobStateCache, "ttl", Duration.ofMinutes(1));
+    given(jobRepository.save(any(Job.class))).willAnswer(invocation -> invocation.getArgument(0));
+    given(jobRepository.saveAndFlush(any(Job.class)))
+        .willAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  void getJobState_shouldServeRepeatedPollsFromMemory() {
+    Job job = job(JobType.EXPORT, JobState.DONE);
+    given(jobRepository.findByIdAndJobType(job.getId(), JobType.EXPORT))
+        .willReturn(Optional.of(job));
+
+    jobService.getJobState(job.getId(), JobType.EXPORT);
+    jobService.getJobState(job.getId(), JobType.EXPORT);
+
+    verify(jobRepository, times(1)).findByIdAndJobType(anyString(), any(JobType.class));
+  }
+
+  @Test
+  void getJobState_shouldServeWrittenThroughStateWithoutQuery() {
+    Job job = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    givenStored(job);
+
+    assertTrue(jobService.updateJobState(job.getId(), JobState.DONE));
+
+    assertEquals(JobState.DONE, jobService.getJobState(job.getId(), JobType.IMPORT).state());
+    verify(jobRepository, never()).findByIdAndJobType(anyString(), any(JobType.class));
+  }
+
+  @Test
+  void getJobState_shouldReadInProgressJobThatIsNotRunningFromDatabase() {
+    Job job = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    jobStateCache.put(job);
+    Job stored = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    stored.setRowsProcessed(5L);
+    given(jobRepository.findByIdAndJobType(job.getId(), JobType.IMPORT))
+        .willReturn(Optional.of(stored));
+
+    assertEquals(5L, jobService.getJobState(job.getId(), JobType.IMPORT).rowsProcessed());
+  }
+
+  @Test
+  void getJobState_shouldNotServeCachedJobOfOtherType() {
+    Job job = job(JobType.IMPORT, JobState.DONE);
+    jobStateCache.put(job);
+
+    assertThrows(
+        EntityNotFoundException.class, () -> jobService.getJobState(job.getId(), JobType.EXPORT));
+  }
+
+  @Test
+  void updateJobState_shouldNotOverwriteCancelledJob() {
+    Job job = job(JobType.IMPORT, JobState.CANCELLED);
+    givenStored(job);
+
+    assertFalse(jobService.updateJobState(job.getId(), JobState.DONE));
+
+    assertEquals(JobState.CANCELLED, job.getJobState());
+    assertEquals(JobState.CANCELLED, jobService.getJobState(job.getId(), JobType.IMPORT).state());
+  }
+
+  @Test
+  void saveNewImportJob_shouldKeyReusableJobOnContentFormatAndMode() {
+    Job job = jobService.saveNewImportJob("path", FileFormat.CSV, ImportMode.MERGE, "hash", true);
+    given(jobRepository.findByDedupKey(job.getDedupKey())).willReturn(Optional.of(job));
+
+    assertEquals(
+        Optional.of(job),
+        jobService.findReusableImportJob("hash", FileFormat.CSV, ImportMode.MERGE));
+    assertEquals(
+        Optional.empty(),
+        jobService.findReusableImportJob("hash", FileFormat.CSV, ImportMode.APPEND));
+  }
+
+  @Test
+  void saveNewImportJob_shouldNotKeyForcedJob() {
+    Job job = jobService.saveNewImportJob("path", FileFormat.CSV, ImportMode.APPEND, null, false);
+
+    assertNull(job.getDedupKey());
+  }
+
+  @Test
+  void updateJobState_shouldReleaseDedupKeyOfFailedJob() {
+    Job job = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    givenStored(job);
+
+    assertTrue(jobService.updateJobState(job.getId(), JobState.ERROR));
+
+    verify(jobRepository, times(1)).clearDedupKey(job.getId());
+  }
+
+  @Test
+  void updateJobState_shouldKeepDedupKeyOfDoneJob() {
+    Job job = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    givenStored(job);
+
+    assertTrue(jobService.updateJobState(job.getId(), JobState.DONE));
+
+    verify(jobRepository, never()).clearDedupKey(anyString());
+  }
+
+  @Test
+  void cancelJob_shouldMarkJobInProgressAsCancelled() {
+    Job job = job(JobType.IMPORT, JobState.IN_PROGRESS);
+    givenStored(job);
+
+    jobService.cancelJob(job.getId(), JobType.IMPORT, true);
+
+    assertEquals(JobState.CANCELLED, job.getJobState());
+    assertTrue(job.getRollbackRequested());
+    assertEquals(JobState.CANCELLED, jobService.getJobState(job.getId(), JobType.IMPORT).state());
+  }
+
+  @Test
+  void cancelJob_shouldRejectJobThatHasEnded() {
+    Job job = job(JobType.EXPORT, JobState.DONE);
+    givenStored(job);
+
+    assertThrows(
+        JobNotCancellableException.class,
+        () -> jobService.cancelJob(job.getId(), JobType.EXPORT, false));
+    assertEquals(JobState.DONE, job.getJobState());
+  }
+
+  /** Stores {@code job} in the mocked repository, whose conditional updates apply to it. */
+  private void givenStored(Job job) {
+    given(jobRepository.findById(job.getId())).willReturn(Optional.of(job));
+    given(jobRepository.findByIdAndJobType(job.getId(), job.getJobType()))
+        .willReturn(Optional.of(job));
+    given(jobRepository.updateJobState(eq(job.getId()), any(JobState.class), any(JobState.class)))
+        .willAnswer(
+            invocation -> {
+              if (job.getJobState() != invocation.getArgument(1)) {
+                return 0;
+              }
+              job.setJobState(invocation.getArgument(2));
+              return 1;
+            });
+    given(
+            jobRepository.cancel(
+                eq(job.getId()), anyBoolean(), any(JobState.class), any(JobState.class)))
+        .willAnswer(
+            invocation -> {
+              if (job.getJobState() != invocation.getArgument(2)) {
+                return 0;
+              }
+              job.setJobState(invocation.getArgument(3));
+              job.setRollbackRequested(invocation.getArgument(1));
+              return 1;
+            });
+  }
+
+  private static Job job(JobType type, JobState state) {
+    return Job.builder().id("jobId123").jobType(type).jobState(state).build();
+  }
+}
@@ -0,0 +1,69 @@
+package com.natlex.assignment.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.natlex.assignment.model.Job;
+import com.natlex.assignment.model.JobState;
+
+class JobStateCacheTest {
+
+  private JobStateCache jobStateCache;
+
+  @BeforeEach
+  void setUp() {
+    jobStateCache = new JobStateCache();
+    ReflectionTestUtils.setField(jobStateCache, "maxEntries", 2);
+    ReflectionTestUtils.setField(jobStateCache, "ttl", Duration.ofMinutes(1));
+  }
+
+  @Test
+  void find_shouldReturnLatestPutJob() {
+    jobStateCache.put(job("job1", JobState.IN_PROGRESS));
+    Job done = job("job1", JobState.DONE);
+    jobStateCache.put(done);
+
+    assertEquals(Optional.of(done), jobStateCache.find("job1"));
+    assertTrue(jobStateCache.find("job2").isEmpty());
+  }
+
+  @Test
+  void find_shouldExpireEntriesAfterTtl() {
+    ReflectionTestUtils.setField(jobStateCache, "ttl", Duration.ZERO);
+    jobStateCache.put(job("job1", JobState.DONE));
+
+    assertTrue(jobStateCache.find("job1").isEmpty());
+  }
+
+  @Test
+  void put_shouldEvictLeastRecentlyReadBeyondMaxEntries() {
+    jobStateCache.put(job("job1", JobState.DONE));
+    jobStateCache.put(job("job2", JobState.DONE));
+    jobStateCache.find("job1");
+
+    jobStateCache.put(job("job3", JobState.DONE));
+
+    assertTrue(jobStateCache.find("job1").isPresent());
+    assertTrue(jobStateCache.find("job2").isEmpty());
+    assertTrue(jobStateCache.find("job3").isPresent());
+  }
+
+  @Test
+  void evict_shouldRemoveJob() {
+    jobStateCache.put(job("job1", JobState.DONE));
+
+    jobStateCache.evict("job1");
+
+    assertTrue(jobStateCache.find("job1").isEmpty());
+  }
+
+  private static Job job(String id, JobState state) {
+    return Job.builder().id(id).jobState(state).build();
+  }
+}
@@ -0,0 +1,130 @@
+package com.natlex.assignment.service.reader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+
+class CsvSectionReaderTest {
+
+  private static final String CSV =
+      "\uFEFFSection name,Class 1 name,Class 1 code,Class 2 name,Class 2 code\n"
+          + "Section 1,Geo Class 11,GC11,Geo Class 12,GC12\n"
+          + "\n"
+          + "\"Section \"\"2\"\"\",\"Geo, Class 21\",GC21,,\r\n"
+          + "Section 3,Geo Class 31,GC31";
+
+  @TempDir File tempDir;
+
+  @Test
+  void read_shouldParseRowsAfterHeader() throws Exception {
+    File file = writeFile("sections.csv", CSV);
+
+    assertEquals(expectedSections(), readAll(new CsvSectionReader(file, (byte) ',')));
+  }
+
+  @Test
+  void read_shouldParseRowsSpanningMappingWindows() throws Exception {
+    File file = writeFile("sections.csv", CSV);
+
+    for (long windowSize = 70; windowSize <= 128; windowSize++) {
+      assertEquals(
+          expectedSections(), readAll(new CsvSectionReader(file, (byte) ',', windowSize)));
+    }
+  }
+
+  @Test
+  void read_shouldParseTabSeparatedFile() throws Exception {
+    File file = writeFile("sections.tsv", "Section name\tClass name\tClass code\nS1\tN1\tC1\n");
+
+    List<SectionRequest> sections = readAll(new CsvSectionReader(file, (byte) '\t'));
+
+    assertEquals(1, sections.size());
+    assertEquals("S1", sections.get(0).name());
+    assertEquals("C1", sections.get(0).geologicalClasses().get(0).code());
+  }
+
+  @Test
+  void read_shouldReportRowsWithoutSectionName() throws Exception {
+    File file = writeFile("sections.csv", "Section name\n,N1,C1\n\"\",N2,C2\nS3\n");
+    List<Integer> failedRows = new ArrayList<>();
+    List<SectionRequest> sections = new ArrayList<>();
+
+    new CsvSectionReader(file, (byte) ',')
+        .read(
+            new SectionRowHandler() {
+              @Override
+              public void handle(int rowIndex, SectionRequest section) {
+                sections.add(section);
+              }
+
+              @Override
+              public void rowFailed(int rowIndex, String message) {
+                failedRows.add(rowIndex);
+              }
+            });
+
+    assertEquals(List.of(1, 2), failedRows);
+    assertEquals(1, sections.size());
+    assertEquals("S3", sections.get(0).name());
+  }
+
+  @Test
+  void read_shouldRejectUnterminatedQuote() throws Exception {
+    File file = writeFile("broken.csv", "Section name\n\"Section 1\n");
+
+    assertThrows(IOException.class, () -> readAll(new CsvSectionReader(file, (byte) ',')));
+  }
+
+  @Test
+  void read_shouldHandleFileNotFound() {
+    File file = new File(tempDir, "missing.csv");
+
+    assertThrows(
+        FileNotFoundException.class, () -> readAll(new CsvSectionReader(file, (byte) ',')));
+  }
+
+  private File writeFile(String name, String content) throws IOException {
+    File file = new File(tempDir, name);
+    Files.writeString(file.toPath(), content);
+    return file;
+  }
+
+  private List<SectionRequest> readAll(SectionFileReader reader) throws IOException {
+    List<SectionRequest> sections = new ArrayList<>();
+    reader.read((rowIndex, section) -> sections.add(section));
+    return sections;
+  }
+
+  private List<SectionRequest> expectedSections() {
+    return List.of(
+        SectionRequest.builder()
+            .name("Section 1")
+            .geologicalClasses(
+                List.of(
+                    GeologicalClassRequest.builder().name("Geo Class 11").code("GC11").build(),
+                    GeologicalClassRequest.builder().name("Geo Class 12").code("GC12").build()))
+            .build(),
+        SectionRequest.builder()
+            .name("Section \"2\"")
+            .geologicalClasses(
+                List.of(
+                    GeologicalClassRequest.builder().name("Geo, Class 21").code("GC21").build()))
+            .build(),
+        SectionRequest.builder()
+            .name("Section 3")
+            .geologicalClasses(
+                List.of(GeologicalClassRequest.builder().name("Geo Class 31").code("GC31").build()))
+            .build());
+  }
+}
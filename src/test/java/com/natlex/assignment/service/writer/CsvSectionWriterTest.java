@@ -0,0 +1,106 @@
+package com.natlex.assignment.service.writer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.request.SectionRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+import com.natlex.assignment.service.reader.CsvSectionReader;
+
+class CsvSectionWriterTest {
+
+  @TempDir File tempDir;
+
+  @Test
+  void writeSection_shouldPadRowsAndQuoteSpecialCharacters() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    write(out, sections());
+
+    assertEquals(
+        "Section name,Class name,Class code,Class name,Class code\r\n"
+            + "Section 1,Geo Class 11,GC11,Geo Class 12,GC12\r\n"
+            + "\"Section \"\"2\"\"\",\"Geo, Class 21\",GC21,,\r\n"
+            + "\"Line\nbreak\",,,,\r\n",
+        out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void beginPart_shouldWritePaddedRowsWithoutHeader() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CsvSectionWriter writer = new CsvSectionWriter()) {
+      writer.beginPart(out, 2);
+      writer.writeSection(sections().get(0));
+      writer.finish();
+    }
+
+    assertEquals(
+        "Section 1,Geo Class 11,GC11,Geo Class 12,GC12\r\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void writeSection_shouldFailForSectionWiderThanHeader() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CsvSectionWriter writer = new CsvSectionWriter()) {
+      writer.begin(out, 1);
+
+      assertThrows(IOException.class, () -> writer.writeSection(sections().get(0)));
+    }
+  }
+
+  @Test
+  void writeSection_shouldRoundTripThroughCsvImport() throws Exception {
+    File file = new File(tempDir, "sections.csv");
+    try (OutputStream out = new FileOutputStream(file)) {
+      write(out, sections());
+    }
+
+    List<SectionRequest> read = new ArrayList<>();
+    new CsvSectionReader(file, (byte) ',').read((rowIndex, section) -> read.add(section));
+
+    assertEquals(
+        sections().stream()
+            .map(s -> new SectionRequest(s.name(), s.geologicalClasses()))
+            .toList(),
+        read);
+  }
+
+  private static void write(OutputStream out, List<SectionResponse> sections) throws IOException {
+    try (CsvSectionWriter writer = new CsvSectionWriter()) {
+      writer.begin(out, 2);
+      for (SectionResponse section : sections) {
+        writer.writeSection(section);
+      }
+      writer.finish();
+    }
+  }
+
+  private static List<SectionResponse> sections() {
+    return List.of(
+        section(
+            "Section 1",
+            List.of(
+                geologicalClass("Geo Class 11", "GC11"), geologicalClass("Geo Class 12", "GC12"))),
+        section("Section \"2\"", List.of(geologicalClass("Geo, Class 21", "GC21"))),
+        section("Line\nbreak", List.of()));
+  }
+
+  private static SectionResponse section(String name, List<GeologicalClassRequest> classes) {
+    return SectionResponse.builder().name(name).geologicalClasses(classes).build();
+  }
+
+  private static GeologicalClassRequest geologicalClass(String name, String code) {
+    return GeologicalClassRequest.builder().name(name).code(code).build();
+  }
+}
@@ -0,0 +1,53 @@
+package com.natlex.assignment.service.writer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.natlex.assignment.api.request.GeologicalClassRequest;
+import com.natlex.assignment.api.response.SectionResponse;
+
+class NdjsonSectionWriterTest {
+
+  @Test
+  void writeSection_shouldWriteOneEscapedJsonObjectPerLine() throws Exception {
+    List<SectionResponse> sections =
+        List.of(
+            SectionResponse.builder()
+                .id(1L)
+                .name("Section \"1\"\\\n\t\u0001")
+                .geologicalClasses(
+                    List.of(
+                        GeologicalClassRequest.builder().name("Geo Class 11").code("GC11").build(),
+                        GeologicalClassRequest.builder().name("Géo").code("GC12").build()))
+                .build(),
+            SectionResponse.builder()
+                .id(2L)
+                .name("Section 2")
+                .geologicalClasses(List.of())
+                .build());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (NdjsonSectionWriter writer = new NdjsonSectionWriter()) {
+      writer.begin(out, 2);
+      for (SectionResponse section : sections) {
+        writer.writeSection(section);
+      }
+      writer.finish();
+    }
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertEquals("{\"id\":2,\"name\":\"Section 2\",\"geologicalClasses\":[]}", lines[1]);
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    for (int i = 0; i < lines.length; i++) {
+      assertEquals(sections.get(i), objectMapper.readValue(lines[i], SectionResponse.class));
+    }
+  }
+}
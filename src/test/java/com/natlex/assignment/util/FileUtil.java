@@ -18,28 +18,39 @@ public class FileUtil {
 
   public static File createTempExcelFile(SectionRequest sectionRequest, File tempDir)
       throws IOException {
+    return createTempExcelFile(List.of(sectionRequest), tempDir);
+  }
+
+  public static File createTempExcelFile(List<SectionRequest> sectionRequests, File tempDir)
+      throws IOException {
     File file = new File(tempDir, "test.xls");
 
     try (Workbook workbook = new HSSFWorkbook()) {
       Sheet sheet = workbook.createSheet("Sheet1");
 
+      int maxGeologicalClassCount =
+          sectionRequests.stream().mapToInt(s -> s.geologicalClasses().size()).max().orElse(0);
+
       Row header = sheet.createRow(0);
       header.createCell(0).setCellValue("Section name");
-
-      List<GeologicalClassRequest> geologicalClasses = sectionRequest.geologicalClasses();
-      for (int i = 0; i < geologicalClasses.size(); i++) {
+      for (int i = 0; i < maxGeologicalClassCount; i++) {
         int baseIndex = i * 2 + 1;
         header.createCell(baseIndex).setCellValue("Class " + (i + 1) + " name");
         header.createCell(baseIndex + 1).setCellValue("Class " + (i + 1) + " code");
       }
 
-      Row row = sheet.createRow(1);
-      row.createCell(0).setCellValue(sectionRequest.name());
-      for (int i = 0; i < geologicalClasses.size(); i++) {
-        GeologicalClassRequest geoClass = geologicalClasses.get(i);
-        int baseIndex = i * 2 + 1;
-        row.createCell(baseIndex).setCellValue(geoClass.name());
-        row.createCell(baseIndex + 1).setCellValue(geoClass.code());
+      for (int r = 0; r < sectionRequests.size(); r++) {
+        SectionRequest sectionRequest = sectionRequests.get(r);
+        Row row = sheet.createRow(r + 1);
+        row.createCell(0).setCellValue(sectionRequest.name());
+
+        List<GeologicalClassRequest> geologicalClasses = sectionRequest.geologicalClasses();
+        for (int i = 0; i < geologicalClasses.size(); i++) {
+          GeologicalClassRequest geoClass = geologicalClasses.get(i);
+          int baseIndex = i * 2 + 1;
+          row.createCell(baseIndex).setCellValue(geoClass.name());
+          row.createCell(baseIndex + 1).setCellValue(geoClass.code());
+        }
       }
 
       try (FileOutputStream outputStream = new FileOutputStream(file)) {